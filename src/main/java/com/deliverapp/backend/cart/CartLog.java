@@ -0,0 +1,175 @@
+package com.deliverapp.backend.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of cart mutations not yet written to the database, split into numbered segment
+ * files. Each line holds the entries of one request as a JSON array, so a batch is replayed
+ * completely or, if a crash tore its line, not at all. Entries carry the resulting state of a line
+ * rather than the operation (quantity 5, not +1), so replaying a segment whose changes were
+ * already flushed is harmless. A flush rotates to a new segment first and deletes the older ones
+ * once it commits.
+ */
+@Slf4j
+class CartLog implements Closeable {
+
+    enum Op { SET, REMOVE, CLEAR }
+
+    record Entry(Op op, Long userId, Long productId, Long variantId, Integer quantity, BigDecimal unitPrice,
+                 String selectedOptionsJson, String notes) {
+
+        static Entry set(Long userId, MemoryCart.Line line) {
+            return new Entry(Op.SET, userId, line.key.productId(), line.key.variantId(), line.quantity, line.unitPrice,
+                    line.selectedOptionsJson, line.notes);
+        }
+
+        static Entry remove(Long userId, MemoryCart.LineKey key) {
+            return new Entry(Op.REMOVE, userId, key.productId(), key.variantId(), null, null, null, null);
+        }
+
+        static Entry clear(Long userId) {
+            return new Entry(Op.CLEAR, userId, null, null, null, null, null, null);
+        }
+
+        MemoryCart.LineKey key() {
+            return new MemoryCart.LineKey(productId, variantId);
+        }
+    }
+
+    private static final String PREFIX = "cart-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+
+    CartLog(Path directory, ObjectMapper objectMapper, boolean fsync) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    // Opens a fresh segment after the existing ones; returns the entries left over from before
+    synchronized List<Entry> open() {
+        try {
+            Files.createDirectories(directory);
+            List<Long> existing = segments();
+            List<Entry> entries = new ArrayList<>();
+            for (long number : existing) {
+                read(path(number), entries);
+            }
+            segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+            openSegment();
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart log in " + directory, e);
+        }
+    }
+
+    synchronized void append(List<Entry> entries) {
+        try {
+            String line = objectMapper.writeValueAsString(entries) + '\n';
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                segmentBytes += channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to cart log", e);
+        }
+    }
+
+    // Starts a new segment unless the current one is still empty. Every entry in the segments
+    // before the returned number was appended before this call
+    synchronized long rotate() {
+        if (segmentBytes > 0) {
+            try {
+                channel.close();
+                segment++;
+                openSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot rotate cart log", e);
+            }
+        }
+        return segment;
+    }
+
+    synchronized void deleteBefore(long number) {
+        try {
+            for (long existing : segments()) {
+                if (existing < number) {
+                    Files.deleteIfExists(path(existing));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete flushed cart log segments: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(path(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentBytes = channel.size();
+    }
+
+    private void read(Path file, List<Entry> entries) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    entries.addAll(List.of(objectMapper.readValue(line, Entry[].class)));
+                } catch (IOException e) {
+                    // A crash in the middle of an append leaves a torn last line; nothing after it was acknowledged
+                    log.warn("Skipping unreadable cart log entry in {}", file.getFileName());
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path path(long number) {
+        return directory.resolve(String.format("%s%012d%s", PREFIX, number, SUFFIX));
+    }
+}
@@ -0,0 +1,175 @@
+package com.deliverapp.backend.cart;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * In-memory state of one user's cart in the write-behind engine. Lines are keyed by
+ * (product, variant), the same identity addToCart uses to merge lines, so flushes and log replay
+ * can match them to cart_items rows without relying on generated ids. Not thread-safe: every
+ * access happens under the user's stripe lock in {@link WriteBehindCartEngine}.
+ */
+final class MemoryCart {
+
+    record LineKey(Long productId, Long variantId) {
+    }
+
+    static final class Line {
+        final LineKey key;
+        // Negative id handed out before the row exists; keeps resolving after the flush assigns the real id
+        final long tempId;
+        Long id;
+        String productName;
+        String productImage;
+        String variantName;
+        int quantity;
+        BigDecimal unitPrice;
+        String selectedOptionsJson = "{}";
+        String notes;
+        LocalDateTime createdAt;
+        LocalDateTime updatedAt;
+
+        Line(LineKey key, long tempId) {
+            this.key = key;
+            this.tempId = tempId;
+        }
+
+        long publicId() {
+            return id != null ? id : tempId;
+        }
+
+        BigDecimal subtotal() {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+
+        Line copy() {
+            Line copy = new Line(key, tempId);
+            copy.id = id;
+            copy.productName = productName;
+            copy.productImage = productImage;
+            copy.variantName = variantName;
+            copy.quantity = quantity;
+            copy.unitPrice = unitPrice;
+            copy.selectedOptionsJson = selectedOptionsJson;
+            copy.notes = notes;
+            copy.createdAt = createdAt;
+            copy.updatedAt = updatedAt;
+            return copy;
+        }
+    }
+
+    // Immutable copy handed to the flush, taken under the stripe lock
+    record Snapshot(Long userId, Long cartId, long version, long cartVersion, int totalItems, BigDecimal totalAmount,
+                    List<LineState> lines) {
+    }
+
+    record LineState(LineKey key, int quantity, BigDecimal unitPrice, String selectedOptionsJson, String notes) {
+    }
+
+    final Long userId;
+    Long cartId;
+    final Map<LineKey, Line> lines = new LinkedHashMap<>();
+    int totalItems;
+    BigDecimal totalAmount = BigDecimal.ZERO;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+    // The cart's public version (carts.version), one step per request
+    long cartVersion;
+    // Bumped by every line change; the flush only marks the cart clean if nothing changed meanwhile
+    long version;
+    long flushedVersion;
+    long lastAccessMillis;
+
+    MemoryCart(Long userId) {
+        this.userId = userId;
+    }
+
+    boolean isDirty() {
+        return version != flushedVersion;
+    }
+
+    Optional<Line> findLine(Long lineId) {
+        return lines.values().stream()
+                .filter(line -> lineId.equals(line.id) || lineId == line.tempId)
+                .findFirst();
+    }
+
+    void add(Line line) {
+        lines.put(line.key, line);
+        applyDelta(line.quantity, line.subtotal());
+        touch();
+    }
+
+    // Totals move by the line's before/after difference only, as in CartService
+    void change(Line line, Consumer<Line> change) {
+        applyDelta(-line.quantity, line.subtotal().negate());
+        change.accept(line);
+        line.updatedAt = LocalDateTime.now();
+        applyDelta(line.quantity, line.subtotal());
+        touch();
+    }
+
+    void remove(LineKey key) {
+        Line removed = lines.remove(key);
+        if (removed != null) {
+            applyDelta(-removed.quantity, removed.subtotal().negate());
+            touch();
+        }
+    }
+
+    void clear() {
+        lines.clear();
+        totalItems = 0;
+        totalAmount = BigDecimal.ZERO;
+        touch();
+    }
+
+    // Copy of the lines, totals and versions, so a failed batch or write can be undone
+    record Checkpoint(List<Line> lines, int totalItems, BigDecimal totalAmount, long version, long cartVersion,
+                      LocalDateTime updatedAt) {
+    }
+
+    Checkpoint checkpoint() {
+        List<Line> copies = new ArrayList<>(lines.size());
+        for (Line line : lines.values()) {
+            copies.add(line.copy());
+        }
+        return new Checkpoint(copies, totalItems, totalAmount, version, cartVersion, updatedAt);
+    }
+
+    void rollback(Checkpoint checkpoint) {
+        lines.clear();
+        for (Line line : checkpoint.lines()) {
+            lines.put(line.key, line);
+        }
+        totalItems = checkpoint.totalItems();
+        totalAmount = checkpoint.totalAmount();
+        version = checkpoint.version();
+        cartVersion = checkpoint.cartVersion();
+        updatedAt = checkpoint.updatedAt();
+    }
+
+    Snapshot snapshot() {
+        List<LineState> states = new ArrayList<>(lines.size());
+        for (Line line : lines.values()) {
+            states.add(new LineState(line.key, line.quantity, line.unitPrice, line.selectedOptionsJson, line.notes));
+        }
+        return new Snapshot(userId, cartId, version, cartVersion, totalItems, totalAmount, states);
+    }
+
+    private void applyDelta(int quantityDelta, BigDecimal subtotalDelta) {
+        totalItems += quantityDelta;
+        totalAmount = totalAmount.add(subtotalDelta);
+    }
+
+    private void touch() {
+        version++;
+        updatedAt = LocalDateTime.now();
+    }
+}
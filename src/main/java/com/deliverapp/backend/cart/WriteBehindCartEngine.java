@@ -0,0 +1,780 @@
+package com.deliverapp.backend.cart;
+
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.dto.request.AddToCartRequest;
+import com.deliverapp.backend.dto.request.CartBatchRequest;
+import com.deliverapp.backend.dto.request.CartOperationRequest;
+import com.deliverapp.backend.dto.request.UpdateCartItemRequest;
+import com.deliverapp.backend.dto.response.CartDeltaResponse;
+import com.deliverapp.backend.dto.response.CartItemResponse;
+import com.deliverapp.backend.dto.response.CartResponse;
+import com.deliverapp.backend.model.Cart;
+import com.deliverapp.backend.model.CartItem;
+import com.deliverapp.backend.model.Product;
+import com.deliverapp.backend.model.ProductVariant;
+import com.deliverapp.backend.repository.CartItemRepository;
+import com.deliverapp.backend.repository.CartRepository;
+import com.deliverapp.backend.repository.ProductRepository;
+import com.deliverapp.backend.repository.ProductVariantRepository;
+import com.deliverapp.backend.repository.UserRepository;
+import com.deliverapp.backend.service.CartEngine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Write-behind cart engine (cart.write-behind.enabled=true). Active carts live in memory keyed
+ * by user id and are guarded by striped locks, so a mutation only touches memory and the local
+ * {@link CartLog} before it responds. Dirty carts are written to carts/cart_items in one batched
+ * transaction every flush interval, before checkout reads the cart and on shutdown. On startup
+ * the log left by a crash is replayed onto the database state and flushed.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "cart.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class WriteBehindCartEngine implements CartEngine {
+
+    private record ProductLine(String productName, String productImage, String variantName, BigDecimal unitPrice) {
+    }
+
+    private record FlushResult(Long userId, long version, Long cartId, Map<MemoryCart.LineKey, Long> lineIds) {
+    }
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final UserRepository userRepository;
+    private final ProductAttributes productAttributes;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate flushTransaction;
+    private final CartLog cartLog;
+    private final Duration flushInterval;
+    private final Duration idleTimeout;
+
+    private final Map<Long, MemoryCart> carts = new ConcurrentHashMap<>();
+    private final Lock[] stripes;
+    // Flushes are serialized, so two of them never insert the same new line twice
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong tempIds = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public WriteBehindCartEngine(CartRepository cartRepository,
+                                 CartItemRepository cartItemRepository,
+                                 ProductRepository productRepository,
+                                 ProductVariantRepository productVariantRepository,
+                                 UserRepository userRepository,
+                                 ProductAttributes productAttributes,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${cart.write-behind.log-dir:data/cart-log}") Path logDirectory,
+                                 @Value("${cart.write-behind.fsync:false}") boolean fsync,
+                                 @Value("${cart.write-behind.flush-interval:5s}") Duration flushInterval,
+                                 @Value("${cart.write-behind.idle-timeout:30m}") Duration idleTimeout,
+                                 @Value("${cart.write-behind.lock-stripes:64}") int lockStripes) {
+        this(cartRepository, cartItemRepository, productRepository, productVariantRepository, userRepository,
+                productAttributes, objectMapper, transactionManager, new CartLog(logDirectory, objectMapper, fsync),
+                flushInterval, idleTimeout, lockStripes);
+    }
+
+    WriteBehindCartEngine(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                          ProductRepository productRepository, ProductVariantRepository productVariantRepository,
+                          UserRepository userRepository, ProductAttributes productAttributes, ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager, CartLog cartLog, Duration flushInterval,
+                          Duration idleTimeout, int lockStripes) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.userRepository = userRepository;
+        this.productAttributes = productAttributes;
+        this.objectMapper = objectMapper;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        // Own transaction, so a flush triggered from inside checkout commits even if the order fails
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cartLog = cartLog;
+        this.flushInterval = flushInterval;
+        this.idleTimeout = idleTimeout;
+        this.stripes = new Lock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        replay(cartLog.open());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushInterval.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        flushAll();
+        cartLog.close();
+    }
+
+    @Override
+    public CartResponse getCart(Long userId) {
+        Lock lock = stripe(userId);
+        lock.lock();
+        try {
+            MemoryCart cart = load(userId, false);
+            return cart != null ? toResponse(cart) : emptyCartResponse(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CartResponse addToCart(Long userId, AddToCartRequest request) {
+        // Product reads stay outside the lock; only the cart itself is in memory
+        ProductLine product = loadProduct(request.getProductId(), request.getProductVariantId());
+        return mutate(userId, true, (cart, mutation) -> addLine(cart, product, request.getProductId(),
+                request.getProductVariantId(), request.getQuantity(), request.getSelectedOptions(), request.getNotes(),
+                mutation), this::toResponse);
+    }
+
+    @Override
+    public CartResponse updateCartItem(Long userId, Long cartItemId, UpdateCartItemRequest request) {
+        return mutate(userId, false, (cart, mutation) -> updateLine(cart, cartItemId, request.getQuantity(),
+                request.getSelectedOptions(), request.getNotes(), mutation), this::toResponse);
+    }
+
+    @Override
+    public CartResponse removeFromCart(Long userId, Long cartItemId) {
+        return mutate(userId, false, (cart, mutation) -> removeLine(cart, cartItemId, mutation), this::toResponse);
+    }
+
+    @Override
+    public CartResponse applyBatch(Long userId, CartBatchRequest request) {
+        return applyBatch(userId, request, this::toResponse);
+    }
+
+    @Override
+    public CartDeltaResponse applyBatchDelta(Long userId, CartBatchRequest request) {
+        return applyBatch(userId, request, (cart, mutation) -> CartDeltaResponse.builder()
+                .cartId(cart.cartId)
+                .version(cart.cartVersion)
+                .totalAmount(cart.totalAmount)
+                .totalItems(cart.totalItems)
+                .changedItems(mutation.changed.values().stream()
+                        .map(line -> toItemResponse(cart, line))
+                        .toList())
+                .removedItemIds(List.copyOf(mutation.removed))
+                .build());
+    }
+
+    @Override
+    public CartResponse clearCart(Long userId) {
+        return mutate(userId, false, (cart, mutation) -> {
+            if (cart == null) {
+                throw new RuntimeException("Cart not found");
+            }
+            cart.clear();
+            mutation.entries.add(CartLog.Entry.clear(userId));
+        }, this::toResponse);
+    }
+
+    @Override
+    public Integer getCartItemCount(Long userId) {
+        Lock lock = stripe(userId);
+        lock.lock();
+        try {
+            MemoryCart cart = carts.get(userId);
+            if (cart != null) {
+                return cart.totalItems;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Not worth loading the whole cart into memory for a badge count
+        return readTransaction.execute(status -> cartRepository.findByUserIdAndIsActiveTrue(userId)
+                .map(Cart::getTotalItems)
+                .orElse(0));
+    }
+
+    @Override
+    public void flush(Long userId) {
+        flushLock.lock();
+        try {
+            MemoryCart.Snapshot snapshot = null;
+            Lock lock = stripe(userId);
+            lock.lock();
+            try {
+                MemoryCart cart = carts.get(userId);
+                if (cart != null && cart.isDirty()) {
+                    snapshot = cart.snapshot();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (snapshot != null) {
+                applyResults(write(List.of(snapshot)));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Writes every dirty cart in one transaction, then drops the log segments it covered
+    public void flushAll() {
+        flushLock.lock();
+        try {
+            long covered = cartLog.rotate();
+            List<MemoryCart.Snapshot> snapshots = new ArrayList<>();
+            for (Long userId : carts.keySet()) {
+                Lock lock = stripe(userId);
+                lock.lock();
+                try {
+                    MemoryCart cart = carts.get(userId);
+                    if (cart != null && cart.isDirty()) {
+                        snapshots.add(cart.snapshot());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (!snapshots.isEmpty()) {
+                applyResults(write(snapshots));
+                log.debug("Flushed {} carts", snapshots.size());
+            }
+            cartLog.deleteBefore(covered);
+            evictIdle();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            // Carts stay dirty and the log segments stay on disk; the next interval retries
+            log.error("Cart flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // What one request changed: its log entries, plus the touched lines for delta responses
+    private static final class Mutation {
+        private final List<CartLog.Entry> entries = new ArrayList<>();
+        private final Map<MemoryCart.LineKey, MemoryCart.Line> changed = new LinkedHashMap<>();
+        private final Set<Long> removed = new LinkedHashSet<>();
+
+        void set(MemoryCart cart, MemoryCart.Line line) {
+            entries.add(CartLog.Entry.set(cart.userId, line));
+            changed.put(line.key, line);
+        }
+
+        void remove(MemoryCart cart, MemoryCart.Line line) {
+            entries.add(CartLog.Entry.remove(cart.userId, line.key));
+            changed.remove(line.key);
+            removed.add(line.publicId());
+        }
+    }
+
+    // Runs a mutation under the user's stripe lock, steps the cart version once and logs the
+    // change before responding. If the log can't be written, the change is undone before anyone
+    // else sees it and made again as a write-through instead
+    private <T> T mutate(Long userId, boolean createIfMissing, BiConsumer<MemoryCart, Mutation> change,
+                         BiFunction<MemoryCart, Mutation, T> respond) {
+        Lock lock = stripe(userId);
+        lock.lock();
+        try {
+            Mutation mutation = new Mutation();
+            MemoryCart cart = load(userId, createIfMissing);
+            MemoryCart.Checkpoint checkpoint = cart != null ? cart.checkpoint() : null;
+            change.accept(cart, mutation);
+            cart.cartVersion++;
+            boolean logged = true;
+            try {
+                cartLog.append(mutation.entries);
+            } catch (UncheckedIOException e) {
+                log.warn("Cart log unavailable, writing cart of user {} through: {}", userId, e.getMessage());
+                cart.rollback(checkpoint);
+                logged = false;
+            }
+            if (logged) {
+                return respond.apply(cart, mutation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return mutateWriteThrough(userId, createIfMissing, change, respond);
+    }
+
+    // Applies the change and writes the cart before responding. The stripe stays locked for the
+    // write (taken after flushLock, in the same order as flushAll) so nothing can build on the
+    // change before it is durable, and a failed write rolls the cart back without a trace
+    private <T> T mutateWriteThrough(Long userId, boolean createIfMissing, BiConsumer<MemoryCart, Mutation> change,
+                                     BiFunction<MemoryCart, Mutation, T> respond) {
+        flushLock.lock();
+        try {
+            Lock lock = stripe(userId);
+            lock.lock();
+            try {
+                Mutation mutation = new Mutation();
+                MemoryCart cart = load(userId, createIfMissing);
+                MemoryCart.Checkpoint checkpoint = cart != null ? cart.checkpoint() : null;
+                change.accept(cart, mutation);
+                cart.cartVersion++;
+                try {
+                    applyResults(write(List.of(cart.snapshot())));
+                } catch (RuntimeException e) {
+                    cart.rollback(checkpoint);
+                    throw e;
+                }
+                return respond.apply(cart, mutation);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private CartResponse toResponse(MemoryCart cart, Mutation mutation) {
+        return toResponse(cart);
+    }
+
+    // All operations run under one lock acquisition and are logged as one entry; a failing
+    // operation rolls the in-memory cart back to where the batch started
+    private <T> T applyBatch(Long userId, CartBatchRequest request, BiFunction<MemoryCart, Mutation, T> respond) {
+        Map<MemoryCart.LineKey, ProductLine> products = new HashMap<>();
+        for (CartOperationRequest operation : request.getOperations()) {
+            if (operation.getType() == CartOperationRequest.Type.ADD) {
+                products.computeIfAbsent(new MemoryCart.LineKey(operation.getProductId(), operation.getProductVariantId()),
+                        key -> loadProduct(key.productId(), key.variantId()));
+            }
+        }
+
+        return mutate(userId, true, (cart, mutation) -> {
+            MemoryCart.Checkpoint checkpoint = cart.checkpoint();
+            try {
+                for (CartOperationRequest operation : request.getOperations()) {
+                    switch (operation.getType()) {
+                        case ADD -> addLine(cart,
+                                products.get(new MemoryCart.LineKey(operation.getProductId(), operation.getProductVariantId())),
+                                operation.getProductId(), operation.getProductVariantId(), operation.getQuantity(),
+                                operation.getSelectedOptions(), operation.getNotes(), mutation);
+                        case UPDATE -> updateLine(cart, operation.getCartItemId(), operation.getQuantity(),
+                                operation.getSelectedOptions(), operation.getNotes(), mutation);
+                        case REMOVE -> removeLine(cart, operation.getCartItemId(), mutation);
+                    }
+                }
+            } catch (RuntimeException e) {
+                cart.rollback(checkpoint);
+                throw e;
+            }
+        }, respond);
+    }
+
+    private void addLine(MemoryCart cart, ProductLine product, Long productId, Long variantId, int quantity,
+                         Map<String, Object> selectedOptions, String notes, Mutation mutation) {
+        MemoryCart.LineKey key = new MemoryCart.LineKey(productId, variantId);
+        String selectedOptionsJson = selectedOptions != null ? toJson(selectedOptions) : null;
+        MemoryCart.Line line = cart.lines.get(key);
+        if (line == null) {
+            line = newLine(key, product);
+            line.quantity = quantity;
+            if (selectedOptionsJson != null) {
+                line.selectedOptionsJson = selectedOptionsJson;
+            }
+            line.notes = notes;
+            cart.add(line);
+        } else {
+            cart.change(line, existing -> {
+                existing.quantity += quantity;
+                existing.unitPrice = product.unitPrice();
+                if (selectedOptionsJson != null) {
+                    existing.selectedOptionsJson = selectedOptionsJson;
+                }
+                if (notes != null) {
+                    existing.notes = notes;
+                }
+            });
+        }
+        mutation.set(cart, line);
+    }
+
+    private void updateLine(MemoryCart cart, Long cartItemId, Integer quantity, Map<String, Object> selectedOptions,
+                            String notes, Mutation mutation) {
+        if (quantity != null && quantity <= 0) {
+            // If quantity is 0 or negative, remove the item
+            removeLine(cart, cartItemId, mutation);
+            return;
+        }
+        MemoryCart.Line line = findLine(cart, cartItemId);
+        String selectedOptionsJson = selectedOptions != null ? toJson(selectedOptions) : null;
+        cart.change(line, existing -> {
+            if (quantity != null) {
+                existing.quantity = quantity;
+            }
+            if (selectedOptionsJson != null) {
+                existing.selectedOptionsJson = selectedOptionsJson;
+            }
+            if (notes != null) {
+                existing.notes = notes;
+            }
+        });
+        mutation.set(cart, line);
+    }
+
+    private void removeLine(MemoryCart cart, Long cartItemId, Mutation mutation) {
+        MemoryCart.Line line = findLine(cart, cartItemId);
+        cart.remove(line.key);
+        mutation.remove(cart, line);
+    }
+
+    private MemoryCart.Line findLine(MemoryCart cart, Long cartItemId) {
+        Optional<MemoryCart.Line> line = cart != null ? cart.findLine(cartItemId) : Optional.empty();
+        return line.orElseThrow(() -> new RuntimeException("Cart item not found"));
+    }
+
+    // Callers hold the user's stripe lock
+    private MemoryCart load(Long userId, boolean createIfMissing) {
+        MemoryCart cart = carts.get(userId);
+        if (cart == null) {
+            cart = readTransaction.execute(status -> cartRepository.findByUserIdWithItemsAndProducts(userId)
+                    .map(this::toMemoryCart)
+                    .orElse(null));
+            if (cart == null) {
+                if (!createIfMissing) {
+                    return null;
+                }
+                if (!userRepository.existsById(userId)) {
+                    throw new RuntimeException("User not found");
+                }
+                cart = new MemoryCart(userId);
+                cart.createdAt = LocalDateTime.now();
+                cart.updatedAt = cart.createdAt;
+            }
+            carts.put(userId, cart);
+        }
+        cart.lastAccessMillis = System.currentTimeMillis();
+        return cart;
+    }
+
+    private MemoryCart toMemoryCart(Cart entity) {
+        MemoryCart cart = new MemoryCart(entity.getUser().getId());
+        cart.cartId = entity.getId();
+        cart.cartVersion = entity.getVersion() != null ? entity.getVersion() : 0L;
+        cart.createdAt = entity.getCreatedAt();
+        cart.updatedAt = entity.getUpdatedAt();
+        for (CartItem item : entity.getCartItems()) {
+            ProductVariant variant = item.getProductVariant();
+            MemoryCart.LineKey key = new MemoryCart.LineKey(item.getProduct().getId(), variant != null ? variant.getId() : null);
+            MemoryCart.Line line = newLine(key, productLine(item.getProduct(), variant, item.getUnitPrice()));
+            line.id = item.getId();
+            line.quantity = item.getQuantity();
+            line.selectedOptionsJson = item.getSelectedOptionsJson();
+            line.notes = item.getNotes();
+            line.createdAt = item.getCreatedAt();
+            line.updatedAt = item.getUpdatedAt();
+            cart.lines.put(key, line);
+        }
+        // Same totals the database holds; a freshly loaded cart is clean
+        cart.totalItems = entity.getTotalItems() != null ? entity.getTotalItems() : 0;
+        cart.totalAmount = entity.getTotalAmount() != null ? entity.getTotalAmount() : BigDecimal.ZERO;
+        return cart;
+    }
+
+    private MemoryCart.Line newLine(MemoryCart.LineKey key, ProductLine product) {
+        MemoryCart.Line line = new MemoryCart.Line(key, tempIds.decrementAndGet());
+        line.productName = product.productName();
+        line.productImage = product.productImage();
+        line.variantName = product.variantName();
+        line.unitPrice = product.unitPrice();
+        line.createdAt = LocalDateTime.now();
+        line.updatedAt = line.createdAt;
+        return line;
+    }
+
+    private ProductLine loadProduct(Long productId, Long variantId) {
+        return readTransaction.execute(status -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            ProductVariant variant = null;
+            if (variantId != null) {
+                variant = productVariantRepository.findById(variantId)
+                        .orElseThrow(() -> new RuntimeException("Product variant not found"));
+            }
+
+            // Same pricing rule as a persisted cart item
+            CartItem priced = new CartItem();
+            priced.setProduct(product);
+            priced.setProductVariant(variant);
+            priced.setUnitPriceFromProduct();
+            if (priced.getUnitPrice() == null) {
+                throw new RuntimeException("Product price not found");
+            }
+            return productLine(product, variant, priced.getUnitPrice());
+        });
+    }
+
+    private ProductLine productLine(Product product, ProductVariant variant, BigDecimal unitPrice) {
+        String image = productAttributes.get(product.getId(), product.getUpdatedAt(), product.getAttributesJson())
+                .primaryImage();
+        return new ProductLine(product.getName(), image, variant != null ? variant.getVariantName() : null, unitPrice);
+    }
+
+    // One transaction for the whole batch; rows are matched to lines by (product, variant)
+    private List<FlushResult> write(List<MemoryCart.Snapshot> snapshots) {
+        return flushTransaction.execute(status -> {
+            List<FlushResult> results = new ArrayList<>(snapshots.size());
+            for (MemoryCart.Snapshot snapshot : snapshots) {
+                results.add(write(snapshot));
+            }
+            return results;
+        });
+    }
+
+    private FlushResult write(MemoryCart.Snapshot snapshot) {
+        Cart cart = Optional.ofNullable(snapshot.cartId())
+                .flatMap(cartRepository::findById)
+                .or(() -> cartRepository.findByUserIdAndIsActiveTrue(snapshot.userId()))
+                .orElse(null);
+        if (cart == null) {
+            if (snapshot.lines().isEmpty()) {
+                return new FlushResult(snapshot.userId(), snapshot.version(), null, Map.of());
+            }
+            cart = new Cart();
+            cart.setUser(userRepository.getReferenceById(snapshot.userId()));
+        }
+        cart.setVersion(snapshot.cartVersion());
+        cart.setTotalItems(snapshot.totalItems());
+        cart.setTotalAmount(snapshot.totalAmount());
+        cart = cartRepository.save(cart);
+
+        Map<MemoryCart.LineKey, CartItem> existing = new HashMap<>();
+        for (CartItem item : cartItemRepository.findByCartId(cart.getId())) {
+            ProductVariant variant = item.getProductVariant();
+            existing.put(new MemoryCart.LineKey(item.getProduct().getId(), variant != null ? variant.getId() : null), item);
+        }
+
+        Map<MemoryCart.LineKey, Long> lineIds = new HashMap<>();
+        for (MemoryCart.LineState line : snapshot.lines()) {
+            CartItem item = existing.remove(line.key());
+            if (item == null) {
+                item = new CartItem();
+                item.setCart(cart);
+                item.setProduct(productRepository.getReferenceById(line.key().productId()));
+                if (line.key().variantId() != null) {
+                    item.setProductVariant(productVariantRepository.getReferenceById(line.key().variantId()));
+                }
+            }
+            item.setQuantity(line.quantity());
+            item.setUnitPrice(line.unitPrice());
+            item.setSelectedOptionsJson(line.selectedOptionsJson());
+            item.setNotes(line.notes());
+            item.calculateSubtotal();
+            lineIds.put(line.key(), cartItemRepository.save(item).getId());
+        }
+        cartItemRepository.deleteAll(existing.values());
+        return new FlushResult(snapshot.userId(), snapshot.version(), cart.getId(), lineIds);
+    }
+
+    private void applyResults(List<FlushResult> results) {
+        for (FlushResult result : results) {
+            Lock lock = stripe(result.userId());
+            lock.lock();
+            try {
+                MemoryCart cart = carts.get(result.userId());
+                if (cart == null) {
+                    continue;
+                }
+                cart.cartId = result.cartId();
+                for (MemoryCart.Line line : cart.lines.values()) {
+                    if (line.id == null) {
+                        line.id = result.lineIds().get(line.key);
+                    }
+                }
+                // Mutations made while the batch was written keep the cart dirty
+                cart.flushedVersion = Math.max(cart.flushedVersion, result.version());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeout.toMillis();
+        for (Long userId : carts.keySet()) {
+            Lock lock = stripe(userId);
+            lock.lock();
+            try {
+                MemoryCart cart = carts.get(userId);
+                if (cart != null && !cart.isDirty() && cart.lastAccessMillis < cutoff) {
+                    carts.remove(userId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Applies the entries left in the log by a crash, then writes the result to the database
+    private void replay(List<CartLog.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        log.info("Replaying {} cart log entries", entries.size());
+        for (CartLog.Entry entry : entries) {
+            Lock lock = stripe(entry.userId());
+            lock.lock();
+            try {
+                replay(entry);
+            } catch (RuntimeException e) {
+                log.warn("Skipping cart log entry for user {}: {}", entry.userId(), e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+        flushAll();
+    }
+
+    private void replay(CartLog.Entry entry) {
+        MemoryCart cart = load(entry.userId(), true);
+        switch (entry.op()) {
+            case SET -> {
+                MemoryCart.Line line = cart.lines.get(entry.key());
+                if (line == null) {
+                    ProductLine product = loadProduct(entry.productId(), entry.variantId());
+                    line = newLine(entry.key(), product);
+                    line.quantity = entry.quantity();
+                    line.unitPrice = entry.unitPrice();
+                    line.selectedOptionsJson = entry.selectedOptionsJson();
+                    line.notes = entry.notes();
+                    cart.add(line);
+                } else {
+                    cart.change(line, existing -> {
+                        existing.quantity = entry.quantity();
+                        existing.unitPrice = entry.unitPrice();
+                        existing.selectedOptionsJson = entry.selectedOptionsJson();
+                        existing.notes = entry.notes();
+                    });
+                }
+            }
+            case REMOVE -> cart.remove(entry.key());
+            case CLEAR -> cart.clear();
+        }
+        cart.cartVersion++;
+    }
+
+    private Lock stripe(Long userId) {
+        return stripes[Math.floorMod(userId.hashCode(), stripes.length)];
+    }
+
+    private CartResponse toResponse(MemoryCart cart) {
+        List<CartItemResponse> items = cart.lines.values().stream()
+                .sorted(Comparator.comparing((MemoryCart.Line line) -> line.createdAt).reversed())
+                .map(line -> toItemResponse(cart, line))
+                .toList();
+
+        return CartResponse.builder()
+                .id(cart.cartId)
+                .userId(cart.userId)
+                .totalAmount(cart.totalAmount)
+                .totalItems(cart.totalItems)
+                .isEmpty(items.isEmpty())
+                .version(cart.cartVersion)
+                .cartItems(items)
+                .createdAt(cart.createdAt)
+                .updatedAt(cart.updatedAt)
+                .build();
+    }
+
+    private CartItemResponse toItemResponse(MemoryCart cart, MemoryCart.Line line) {
+        return CartItemResponse.builder()
+                .id(line.publicId())
+                .cartId(cart.cartId)
+                .productId(line.key.productId())
+                .productName(line.productName)
+                .productImage(line.productImage)
+                .productVariantId(line.key.variantId())
+                .variantName(line.variantName)
+                .quantity(line.quantity)
+                .unitPrice(line.unitPrice)
+                .subtotal(line.subtotal())
+                .selectedOptions(fromJson(line.selectedOptionsJson))
+                .notes(line.notes)
+                .createdAt(line.createdAt)
+                .updatedAt(line.updatedAt)
+                .build();
+    }
+
+    private CartResponse emptyCartResponse(Long userId) {
+        return CartResponse.builder()
+                .userId(userId)
+                .totalAmount(BigDecimal.ZERO)
+                .totalItems(0)
+                .isEmpty(true)
+                .version(0L)
+                .cartItems(List.of())
+                .build();
+    }
+
+    private String toJson(Map<String, Object> map) {
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            return "{}";
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, Map.class);
+        } catch (Exception e) {
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.deliverapp.backend.catalog;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+// Cache sizes, TTL and stats recording are configured with spring.cache.* in application.properties
+@Configuration
+// Caching runs outside the transaction interceptor so cache hits never open a transaction
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CatalogCacheConfig {
+
+    public static final String SERVICES = "services";
+    public static final String PRODUCT_LISTS = "productLists";
+    public static final String PRODUCT_DETAILS = "productDetails";
+    public static final List<String> CACHE_NAMES = List.of(SERVICES, PRODUCT_LISTS, PRODUCT_DETAILS);
+
+    public static final String KEY_GENERATOR = "catalogKeyGenerator";
+
+    // Keys are (catalog version, method, arguments): a version bump makes every older entry unreachable
+    @Bean(KEY_GENERATOR)
+    public KeyGenerator catalogKeyGenerator(CatalogVersion catalogVersion) {
+        return (target, method, params) -> {
+            Object[] parts = new Object[params.length + 2];
+            parts[0] = catalogVersion.current();
+            parts[1] = method.getName();
+            System.arraycopy(params, 0, parts, 2, params.length);
+            return new SimpleKey(parts);
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.deliverapp.backend.catalog;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bumps the {@link CatalogVersion} and clears the catalog caches once per transaction that
+ * changed the catalog, however many catalog rows it wrote. Changes made outside a transaction
+ * are applied immediately.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogCacheInvalidator {
+
+    // Bound to the transaction once its first catalog change has registered the after-commit bump
+    private static final Object CATALOG_DIRTY = new Object();
+
+    private final CatalogVersion catalogVersion;
+    private final CacheManager cacheManager;
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpAndClear();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(CATALOG_DIRTY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(CATALOG_DIRTY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Runs after commit so a concurrent reader can't reload the old rows into a fresh entry
+            @Override
+            public void afterCommit() {
+                bumpAndClear();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CATALOG_DIRTY);
+            }
+        });
+    }
+
+    // The version was already adopted, so only the memory is left to free
+    @EventListener
+    public void onRemoteCatalogChanged(RemoteCatalogChangedEvent event) {
+        clearCaches();
+    }
+
+    private void bumpAndClear() {
+        long version = catalogVersion.bump();
+        log.debug("Catalog changed, version is now {}", version);
+
+        // Older entries are already unreachable through their keys; clearing frees the memory
+        // now instead of waiting for size/TTL eviction
+        clearCaches();
+    }
+
+    private void clearCaches() {
+        for (String cacheName : CatalogCacheConfig.CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
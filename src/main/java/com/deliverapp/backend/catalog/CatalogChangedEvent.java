@@ -0,0 +1,12 @@
+package com.deliverapp.backend.catalog;
+
+/**
+ * Published for every insert, update or delete of a catalog entity.
+ * Listeners that need committed data should use {@code @TransactionalEventListener}.
+ */
+public record CatalogChangedEvent(Object entity) {
+
+    public boolean isAbout(Class<?> entityType) {
+        return entityType.isInstance(entity);
+    }
+}
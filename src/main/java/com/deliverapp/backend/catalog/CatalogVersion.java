@@ -0,0 +1,172 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.CatalogRevision;
+import com.deliverapp.backend.repository.CatalogRevisionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Monotonic version of the public catalog (services, categories, products and their children).
+ * Every committed catalog change bumps it; cache keys carry the version so entries loaded
+ * before a change can never be served after it.
+ *
+ * <p>The version also backs conditional GETs on the catalog endpoints: {@link #eTag()} and
+ * {@link #lastModified()} change together with it, so a client holding either validator gets
+ * a 304 without the controller loading or serializing anything. Changes within one second push
+ * Last-Modified ahead of the clock, by at most {@code MAX_LEAD_SECONDS}; while it is ahead it is
+ * withheld and the ETag alone decides.
+ *
+ * <p>The version lives in the {@code catalog_revision} row, so every instance hands out the same
+ * validators. Each instance polls the row every {@code catalog.version.sync-interval}; when another
+ * instance has bumped it, the new version is adopted and a {@link RemoteCatalogChangedEvent} lets
+ * the local caches and indexes reload.
+ */
+@Slf4j
+@Component
+public class CatalogVersion {
+
+    private record State(long version, long lastModifiedSeconds) {
+    }
+
+    // How far a burst of changes may push Last-Modified past the clock
+    static final long MAX_LEAD_SECONDS = 2;
+
+    private final CatalogRevisionRepository catalogRevisionRepository;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration syncInterval;
+    private final AtomicReference<State> state = new AtomicReference<>(new State(0, 0));
+
+    private ScheduledExecutorService scheduler;
+
+    public CatalogVersion(CatalogRevisionRepository catalogRevisionRepository,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${catalog.version.sync-interval:5s}") Duration syncInterval) {
+        this.catalogRevisionRepository = catalogRevisionRepository;
+        // Bumps run after the catalog change has committed, so they need a transaction of their own
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.syncInterval = syncInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        adopt(load());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-version-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, syncInterval.toMillis(), syncInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public long current() {
+        return state.get().version();
+    }
+
+    public long bump() {
+        long seen = current();
+        long now = Instant.now().getEpochSecond();
+        CatalogRevision revision = transaction.execute(status -> {
+            CatalogRevision row = catalogRevisionRepository.findByIdForUpdate(CatalogRevision.ID)
+                    .orElseGet(() -> catalogRevisionRepository.save(new CatalogRevision(CatalogRevision.ID, 0L, toDateTime(now))));
+            row.setVersion(row.getVersion() + 1);
+            // Last-Modified has second precision: two changes within one second must still yield
+            // different dates, otherwise If-Modified-Since would report the second one as unchanged.
+            // A date that would run further ahead is capped; it never moves backwards, and a date
+            // still ahead of the clock is never sent (see lastModified)
+            long previous = toSeconds(row.getModifiedAt());
+            long next = Math.min(Math.max(now, previous + 1), now + MAX_LEAD_SECONDS);
+            row.setModifiedAt(toDateTime(Math.max(previous, next)));
+            return row;
+        });
+        adopt(revision);
+        // Versions in between came from other instances whose changes haven't been picked up here yet
+        if (revision.getVersion() > seen + 1) {
+            eventPublisher.publishEvent(new RemoteCatalogChangedEvent(revision.getVersion()));
+        }
+        return revision.getVersion();
+    }
+
+    /**
+     * Adopts a version bumped by another instance, if there is one.
+     */
+    public void sync() {
+        catalogRevisionRepository.findById(CatalogRevision.ID)
+                .filter(this::adopt)
+                .ifPresent(revision -> {
+                    log.debug("Catalog changed on another instance, version is now {}", revision.getVersion());
+                    eventPublisher.publishEvent(new RemoteCatalogChangedEvent(revision.getVersion()));
+                });
+    }
+
+    public String eTag() {
+        return "\"catalog-" + current() + "\"";
+    }
+
+    // -1 (no Last-Modified, ETag only) while the date is still ahead of the clock
+    public long lastModified() {
+        long seconds = state.get().lastModifiedSeconds();
+        return seconds > Instant.now().getEpochSecond() ? -1 : seconds * 1000;
+    }
+
+    private CatalogRevision load() {
+        return catalogRevisionRepository.findById(CatalogRevision.ID).orElseGet(() -> {
+            try {
+                return transaction.execute(status -> catalogRevisionRepository.save(
+                        new CatalogRevision(CatalogRevision.ID, 0L, toDateTime(Instant.now().getEpochSecond()))));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the row first
+                return catalogRevisionRepository.findById(CatalogRevision.ID).orElseThrow();
+            }
+        });
+    }
+
+    // Only ever moves forward, whichever of a bump and a sync finishes first
+    private boolean adopt(CatalogRevision revision) {
+        State seen = new State(revision.getVersion(), toSeconds(revision.getModifiedAt()));
+        State previous = state.getAndUpdate(current -> seen.version() > current.version() ? seen : current);
+        return seen.version() > previous.version();
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Reading the catalog version failed: {}", e.getMessage());
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
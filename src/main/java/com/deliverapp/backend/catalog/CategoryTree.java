@@ -0,0 +1,102 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.Category;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of all active categories, indexed per service and per parent.
+ * Built in one pass from a single query; readers never touch the database or lazy collections.
+ */
+public final class CategoryTree {
+
+    public record Node(Long id, String name, String description, Long serviceId, String serviceName,
+                       Long parentId, String key, String icon, Integer sortOrder, Boolean isActive,
+                       boolean hasChildren, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+
+    private static final Comparator<Category> SORT_ORDER = Comparator
+            .comparing(Category::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Category::getId);
+
+    public static final CategoryTree EMPTY = of(List.of());
+
+    private final List<Node> all;
+    private final Map<Long, Node> byId;
+    private final Map<String, Node> byKey;
+    private final Map<Long, List<Node>> byService;
+    private final Map<Long, List<Node>> rootsByService;
+    private final Map<Long, List<Node>> childrenByParent;
+
+    private CategoryTree(List<Node> all) {
+        this.all = all;
+        this.byId = all.stream().collect(Collectors.toUnmodifiableMap(Node::id, node -> node));
+        this.byKey = all.stream()
+                .filter(node -> node.key() != null)
+                .collect(Collectors.toUnmodifiableMap(Node::key, node -> node));
+        this.byService = groupBy(all, Node::serviceId);
+        this.rootsByService = groupBy(all.stream().filter(node -> node.parentId() == null).toList(), Node::serviceId);
+        this.childrenByParent = groupBy(all.stream().filter(node -> node.parentId() != null).toList(), Node::parentId);
+    }
+
+    // Categories must come with their service loaded; parents are only read by id
+    public static CategoryTree of(List<Category> activeCategories) {
+        Set<Long> parentIds = activeCategories.stream()
+                .filter(category -> category.getParent() != null)
+                .map(category -> category.getParent().getId())
+                .collect(Collectors.toSet());
+
+        List<Node> nodes = activeCategories.stream()
+                .sorted(SORT_ORDER)
+                .map(category -> new Node(
+                        category.getId(),
+                        category.getName(),
+                        category.getDescription(),
+                        category.getService().getId(),
+                        category.getService().getName(),
+                        category.getParent() != null ? category.getParent().getId() : null,
+                        category.getKey(),
+                        category.getIcon(),
+                        category.getSortOrder(),
+                        category.getIsActive(),
+                        parentIds.contains(category.getId()),
+                        category.getCreatedAt(),
+                        category.getUpdatedAt()))
+                .toList();
+        return new CategoryTree(nodes);
+    }
+
+    public List<Node> all() {
+        return all;
+    }
+
+    public Optional<Node> byId(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Optional<Node> byKey(String key) {
+        return Optional.ofNullable(byKey.get(key));
+    }
+
+    public List<Node> byService(Long serviceId) {
+        return byService.getOrDefault(serviceId, List.of());
+    }
+
+    public List<Node> rootsOfService(Long serviceId) {
+        return rootsByService.getOrDefault(serviceId, List.of());
+    }
+
+    public List<Node> childrenOf(Long parentId) {
+        return childrenByParent.getOrDefault(parentId, List.of());
+    }
+
+    // Keeps the sort order of the input lists
+    private static Map<Long, List<Node>> groupBy(List<Node> nodes, java.util.function.Function<Node, Long> classifier) {
+        Map<Long, List<Node>> grouped = nodes.stream()
+                .collect(Collectors.groupingBy(classifier, Collectors.toList()));
+        grouped.replaceAll((id, list) -> List.copyOf(list));
+        return Map.copyOf(grouped);
+    }
+}
@@ -0,0 +1,56 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.Category;
+import com.deliverapp.backend.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Holds the current {@link CategoryTree}. A rebuild loads every active category in one query,
+ * builds a new snapshot off to the side and publishes it with a single volatile write, so
+ * readers never block and never see a partially built tree.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeHolder {
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile CategoryTree tree;
+
+    public CategoryTree get() {
+        CategoryTree current = tree;
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Service names are part of the snapshot, so service changes rebuild it too
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isAbout(Category.class) || event.isAbout(com.deliverapp.backend.model.Service.class)) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onRemoteCatalogChanged(RemoteCatalogChangedEvent event) {
+        rebuild();
+    }
+
+    // Serialized so that a rebuild which started before a commit can't overwrite a newer one
+    synchronized CategoryTree rebuild() {
+        CategoryTree rebuilt = CategoryTree.of(categoryRepository.findAllActiveWithService());
+        tree = rebuilt;
+        log.debug("Category tree rebuilt with {} categories", rebuilt.all().size());
+        return rebuilt;
+    }
+}
@@ -0,0 +1,87 @@
+package com.deliverapp.backend.catalog;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed {@code Product.attributesJson}, shared by every read path (product list and detail,
+ * cart items, search index). Entries are keyed by product id and {@code updatedAt}, so a product
+ * is parsed once per version and an edit simply misses into a new entry; old versions age out.
+ * Cache statistics are published as {@code cache.*} metrics with {@code cache=productAttributes}.
+ */
+@Component
+public class ProductAttributes implements MeterBinder {
+
+    /** Keys the list card and cart show, in order of preference for the primary image. */
+    public static final List<String> IMAGE_KEYS = List.of("image", "imageUrl", "mainImage");
+
+    public record Parsed(Map<String, Object> attributes, Map<String, Object> cardAttributes, String primaryImage) {
+        static final Parsed EMPTY = new Parsed(Map.of(), Map.of(), null);
+    }
+
+    private record Key(Long productId, LocalDateTime updatedAt) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, Parsed> cache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .recordStats()
+            .build();
+
+    public ProductAttributes(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Parsed get(Long productId, LocalDateTime updatedAt, String attributesJson) {
+        if (attributesJson == null || attributesJson.isEmpty()) {
+            return Parsed.EMPTY;
+        }
+        // Unsaved products have no stable version to key on
+        if (productId == null || updatedAt == null) {
+            return parse(attributesJson);
+        }
+        return cache.get(new Key(productId, updatedAt), key -> parse(attributesJson));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "productAttributes");
+    }
+
+    private Parsed parse(String attributesJson) {
+        Map<String, Object> attributes;
+        try {
+            attributes = objectMapper.readValue(attributesJson, new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            return Parsed.EMPTY;
+        }
+        if (attributes == null) {
+            return Parsed.EMPTY;
+        }
+
+        Map<String, Object> cardAttributes = new LinkedHashMap<>();
+        String primaryImage = null;
+        for (String key : IMAGE_KEYS) {
+            Object value = attributes.get(key);
+            if (value != null) {
+                cardAttributes.put(key, value);
+                if (primaryImage == null && value instanceof String image) {
+                    primaryImage = image;
+                }
+            }
+        }
+        return new Parsed(Collections.unmodifiableMap(attributes), Collections.unmodifiableMap(cardAttributes), primaryImage);
+    }
+}
@@ -0,0 +1,216 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.Product;
+import com.deliverapp.backend.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over active products: name, short description, description and
+ * attribute values. Every query token is matched as a prefix of an indexed term, all tokens
+ * must match, and results are ranked by field-weighted score (exact terms count more than
+ * prefixes), then by sort order.
+ *
+ * <p>The index is built once at startup and then kept up to date one product at a time from
+ * committed catalog changes. Changes committed on another instance arrive as a
+ * {@link RemoteCatalogChangedEvent} without the product, so every active product is re-read.
+ * Writers are serialized; readers never lock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    static final float NAME_WEIGHT = 4f;
+    static final float SHORT_DESCRIPTION_WEIGHT = 2f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+    static final float ATTRIBUTE_WEIGHT = 1f;
+    static final float PREFIX_FACTOR = 0.5f;
+
+    private record Document(Long id, Long serviceId, Long categoryId, int sortOrder, Map<String, Float> terms) {
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductAttributes productAttributes;
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    private volatile boolean built;
+
+    /**
+     * Ids of the active products matching every token of {@code query}, best match first.
+     * Service and category filters are optional.
+     */
+    public List<Long> search(String query, Long serviceId, Long categoryId) {
+        ensureBuilt();
+        List<String> tokens = SearchText.tokens(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Float> scores = null;
+        for (String token : tokens) {
+            Map<Long, Float> tokenScores = scoreToken(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Document> matches = new ArrayList<>();
+        for (Long id : scores.keySet()) {
+            Document document = documents.get(id);
+            if (document != null
+                    && (serviceId == null || serviceId.equals(document.serviceId()))
+                    && (categoryId == null || categoryId.equals(document.categoryId()))) {
+                matches.add(document);
+            }
+        }
+        Map<Long, Float> finalScores = scores;
+        matches.sort(Comparator.<Document>comparingDouble(document -> -finalScores.get(document.id()))
+                .thenComparingInt(Document::sortOrder)
+                .thenComparing(Document::id));
+        return matches.stream().map(Document::id).toList();
+    }
+
+    // Best score per product for one query token; a product matching the token through several
+    // terms keeps the best one so short prefixes don't inflate scores
+    private Map<Long, Float> scoreToken(String token) {
+        Map<Long, Float> tokenScores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            float factor = entry.getKey().equals(token) ? 1f : PREFIX_FACTOR;
+            entry.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * factor, Math::max));
+        }
+        return tokenScores;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureBuilt();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.entity() instanceof Product product && product.getId() != null) {
+            reindex(product.getId());
+        }
+    }
+
+    @EventListener
+    public void onRemoteCatalogChanged(RemoteCatalogChangedEvent event) {
+        rebuild();
+    }
+
+    // Re-reads the committed row: the event's entity may carry uncommitted or detached state
+    synchronized void reindex(Long productId) {
+        if (!built) {
+            ensureBuilt();
+            return;
+        }
+        productRepository.findById(productId)
+                .filter(product -> Boolean.TRUE.equals(product.getIsActive()))
+                .ifPresentOrElse(this::put, () -> remove(productId));
+    }
+
+    // Updates documents in place rather than starting from an empty index, so searches keep
+    // finding the products that didn't change
+    synchronized void rebuild() {
+        if (!built) {
+            ensureBuilt();
+            return;
+        }
+        Set<Long> active = new HashSet<>();
+        for (Product product : productRepository.findAllByIsActiveTrue()) {
+            put(product);
+            active.add(product.getId());
+        }
+        List<Long> gone = documents.keySet().stream().filter(id -> !active.contains(id)).toList();
+        gone.forEach(this::remove);
+        log.debug("Product search index re-read {} products, removed {}", active.size(), gone.size());
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (this) {
+            if (!built) {
+                List<Product> products = productRepository.findAllByIsActiveTrue();
+                products.forEach(this::put);
+                built = true;
+                log.info("Product search index built with {} products and {} terms", documents.size(), postings.size());
+            }
+        }
+    }
+
+    synchronized void put(Product product) {
+        remove(product.getId());
+
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, product.getName(), NAME_WEIGHT);
+        addTerms(terms, product.getShortDescription(), SHORT_DESCRIPTION_WEIGHT);
+        addTerms(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+        List<String> attributeValues = new ArrayList<>();
+        collectValues(productAttributes.get(product.getId(), product.getUpdatedAt(), product.getAttributesJson())
+                .attributes().values(), attributeValues);
+        for (String value : attributeValues) {
+            addTerms(terms, value, ATTRIBUTE_WEIGHT);
+        }
+
+        Document document = new Document(product.getId(), product.getService().getId(), product.getCategory().getId(),
+                product.getSortOrder() != null ? product.getSortOrder() : 0, Map.copyOf(terms));
+        document.terms().forEach((term, weight) ->
+                postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(document.id(), weight));
+        documents.put(document.id(), document);
+    }
+
+    synchronized void remove(Long productId) {
+        Document previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms().keySet()) {
+            postings.computeIfPresent(term, (key, ids) -> {
+                ids.remove(productId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        // A term counts once per field, however often it repeats there
+        for (String token : new HashSet<>(SearchText.tokens(text))) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    private static void collectValues(Iterable<?> nodes, List<String> values) {
+        for (Object node : nodes) {
+            if (node instanceof Map<?, ?> map) {
+                collectValues(map.values(), values);
+            } else if (node instanceof Iterable<?> list) {
+                collectValues(list, values);
+            } else if (node != null) {
+                // Image and link attributes would only add URL fragments to the vocabulary
+                String value = node.toString();
+                if (!value.startsWith("http")) {
+                    values.add(value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.Product;
+import com.deliverapp.backend.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Sorted prefix index of active product names and keys, one array per service, for
+ * search-as-you-type. A lookup is a binary search plus a short forward scan over an array
+ * that is never modified: every change builds a new array for the affected service and
+ * publishes it, so readers don't lock. Changes committed on another instance arrive as a
+ * {@link RemoteCatalogChangedEvent} without the product and rebuild every array.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndex {
+
+    public record Suggestion(Long id, String name) {
+    }
+
+    // One entry per product name, per word of the name (so "piz" finds "Karışık Pizza") and per key
+    private record Entry(String term, Long productId, String name) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byTerm = term.compareTo(other.term);
+            return byTerm != 0 ? byTerm : productId.compareTo(other.productId);
+        }
+    }
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final ProductRepository productRepository;
+
+    private volatile Map<Long, Entry[]> entriesByService = Map.of();
+    // Writer-side bookkeeping, only touched under the lock
+    private final Map<Long, Long> serviceByProduct = new HashMap<>();
+    // Read without the lock by ensureBuilt
+    private volatile boolean built;
+
+    /**
+     * Up to {@code limit} products of the service whose name, a word of the name or key
+     * starts with {@code prefix}, in alphabetical order of the matched text.
+     */
+    public List<Suggestion> suggest(String prefix, Long serviceId, int limit) {
+        ensureBuilt();
+        String folded = String.join(" ", SearchText.tokens(prefix));
+        Entry[] entries = entriesByService.getOrDefault(serviceId, NO_ENTRIES);
+        if (folded.isEmpty() || limit <= 0 || entries.length == 0) {
+            return List.of();
+        }
+
+        int index = Arrays.binarySearch(entries, new Entry(folded, Long.MIN_VALUE, null));
+        index = index >= 0 ? index : -index - 1;
+
+        Map<Long, Suggestion> suggestions = new LinkedHashMap<>();
+        for (int i = index; i < entries.length && suggestions.size() < limit; i++) {
+            Entry entry = entries[i];
+            if (!entry.term().startsWith(folded)) {
+                break;
+            }
+            suggestions.putIfAbsent(entry.productId(), new Suggestion(entry.productId(), entry.name()));
+        }
+        return List.copyOf(suggestions.values());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureBuilt();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.entity() instanceof Product product && product.getId() != null) {
+            reindex(product.getId());
+        }
+    }
+
+    @EventListener
+    public void onRemoteCatalogChanged(RemoteCatalogChangedEvent event) {
+        rebuild();
+    }
+
+    synchronized void reindex(Long productId) {
+        if (!built) {
+            ensureBuilt();
+            return;
+        }
+        Optional<Product> product = productRepository.findById(productId)
+                .filter(candidate -> Boolean.TRUE.equals(candidate.getIsActive()));
+
+        Map<Long, Entry[]> next = new HashMap<>(entriesByService);
+        Long previousServiceId = serviceByProduct.remove(productId);
+        if (previousServiceId != null) {
+            next.put(previousServiceId, withoutProduct(next.get(previousServiceId), productId));
+        }
+        product.ifPresent(current -> {
+            Long serviceId = current.getService().getId();
+            List<Entry> merged = new ArrayList<>(Arrays.asList(withoutProduct(next.get(serviceId), productId)));
+            merged.addAll(entriesFor(current));
+            next.put(serviceId, sorted(merged));
+            serviceByProduct.put(productId, serviceId);
+        });
+        entriesByService = Map.copyOf(next);
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (this) {
+            if (!built) {
+                rebuild();
+            }
+        }
+    }
+
+    // Readers keep using the previous arrays until the new ones are published
+    synchronized void rebuild() {
+        serviceByProduct.clear();
+        Map<Long, List<Entry>> entries = new HashMap<>();
+        for (Product product : productRepository.findAllByIsActiveTrue()) {
+            Long serviceId = product.getService().getId();
+            entries.computeIfAbsent(serviceId, id -> new ArrayList<>()).addAll(entriesFor(product));
+            serviceByProduct.put(product.getId(), serviceId);
+        }
+        Map<Long, Entry[]> next = new HashMap<>();
+        entries.forEach((serviceId, list) -> next.put(serviceId, sorted(list)));
+        entriesByService = Map.copyOf(next);
+        built = true;
+        log.info("Product suggest index built for {} services and {} products", next.size(), serviceByProduct.size());
+    }
+
+    private static List<Entry> entriesFor(Product product) {
+        Set<String> terms = new HashSet<>();
+        List<String> words = SearchText.tokens(product.getName());
+        for (int i = 0; i < words.size(); i++) {
+            terms.add(String.join(" ", words.subList(i, words.size())));
+        }
+        String key = String.join(" ", SearchText.tokens(product.getKey()));
+        if (!key.isEmpty()) {
+            terms.add(key);
+        }
+        return terms.stream()
+                .map(term -> new Entry(term, product.getId(), product.getName()))
+                .toList();
+    }
+
+    private static Entry[] withoutProduct(Entry[] entries, Long productId) {
+        if (entries == null) {
+            return NO_ENTRIES;
+        }
+        return Arrays.stream(entries)
+                .filter(entry -> !entry.productId().equals(productId))
+                .toArray(Entry[]::new);
+    }
+
+    private static Entry[] sorted(List<Entry> entries) {
+        Entry[] array = entries.toArray(Entry[]::new);
+        Arrays.sort(array);
+        return array;
+    }
+}
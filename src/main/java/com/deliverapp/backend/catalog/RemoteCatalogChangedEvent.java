@@ -0,0 +1,8 @@
+package com.deliverapp.backend.catalog;
+
+/**
+ * Published when {@link CatalogVersion} finds that the catalog was changed by another instance.
+ * Which entities changed is not known, so listeners reload everything they derive from the catalog.
+ */
+public record RemoteCatalogChangedEvent(long version) {
+}
@@ -0,0 +1,39 @@
+package com.deliverapp.backend.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Text normalization shared by the in-memory search indexes. Folding is accent and
+ * Turkish-insensitive, so "cikolata", "ÇİKOLATA" and "Çikolata" all end up as "cikolata".
+ */
+final class SearchText {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchText() {
+    }
+
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        // ı has no decomposition, so it is mapped by hand before stripping the marks
+        String lower = text.replace('I', 'i').replace('İ', 'i').replace('ı', 'i').toLowerCase(Locale.ROOT);
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -1,14 +1,15 @@
 package com.deliverapp.backend.controller;
 
 import com.deliverapp.backend.dto.request.AddToCartRequest;
+import com.deliverapp.backend.dto.request.CartBatchRequest;
+import com.deliverapp.backend.dto.request.CartOperationRequest;
 import com.deliverapp.backend.dto.request.UpdateCartItemRequest;
 import com.deliverapp.backend.dto.request.CreateOrderRequest;
 import com.deliverapp.backend.dto.response.CartResponse;
 import com.deliverapp.backend.dto.response.OrderConfirmationResponse;
 import com.deliverapp.backend.dto.response.OrderResponse;
 import com.deliverapp.backend.model.User;
-import com.deliverapp.backend.repository.UserRepository;
-import com.deliverapp.backend.service.CartService;
+import com.deliverapp.backend.service.CartEngine;
 import com.deliverapp.backend.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,7 +17,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -24,58 +27,97 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class CartController {
 
-    private final CartService cartService;
+    private static final String RESPONSE_MODE_HEADER = "X-Cart-Response";
+    private static final String RESPONSE_MODE_PARAM = "response";
+    private static final String DELTA_MODE = "delta";
+
+    private final CartEngine cartEngine;
     private final OrderService orderService;
-    private final UserRepository userRepository;
 
     @GetMapping
     public ResponseEntity<CartResponse> getCart() {
         Long userId = getCurrentUserId();
-        CartResponse cart = cartService.getCart(userId);
+        CartResponse cart = cartEngine.getCart(userId);
         return ResponseEntity.ok(cart);
     }
 
     @PostMapping("/add")
-    public ResponseEntity<CartResponse> addToCart(@Valid @RequestBody AddToCartRequest request) {
+    public ResponseEntity<?> addToCart(@Valid @RequestBody AddToCartRequest request, HttpServletRequest httpRequest) {
         Long userId = getCurrentUserId();
-        CartResponse cart = cartService.addToCart(userId, request);
+        if (isDeltaRequested(httpRequest)) {
+            return ResponseEntity.ok(cartEngine.applyBatchDelta(userId, single(CartOperationRequest.builder()
+                    .type(CartOperationRequest.Type.ADD)
+                    .productId(request.getProductId())
+                    .productVariantId(request.getProductVariantId())
+                    .quantity(request.getQuantity())
+                    .selectedOptions(request.getSelectedOptions())
+                    .notes(request.getNotes())
+                    .build())));
+        }
+        CartResponse cart = cartEngine.addToCart(userId, request);
         return ResponseEntity.ok(cart);
     }
 
     @PutMapping("/items/{cartItemId}")
-    public ResponseEntity<CartResponse> updateCartItem(
+    public ResponseEntity<?> updateCartItem(
             @PathVariable Long cartItemId,
-            @Valid @RequestBody UpdateCartItemRequest request) {
+            @Valid @RequestBody UpdateCartItemRequest request,
+            HttpServletRequest httpRequest) {
         Long userId = getCurrentUserId();
-        CartResponse cart = cartService.updateCartItem(userId, cartItemId, request);
+        if (isDeltaRequested(httpRequest)) {
+            return ResponseEntity.ok(cartEngine.applyBatchDelta(userId, single(CartOperationRequest.builder()
+                    .type(CartOperationRequest.Type.UPDATE)
+                    .cartItemId(cartItemId)
+                    .quantity(request.getQuantity())
+                    .selectedOptions(request.getSelectedOptions())
+                    .notes(request.getNotes())
+                    .build())));
+        }
+        CartResponse cart = cartEngine.updateCartItem(userId, cartItemId, request);
         return ResponseEntity.ok(cart);
     }
 
     @DeleteMapping("/items/{cartItemId}")
-    public ResponseEntity<CartResponse> removeFromCart(@PathVariable Long cartItemId) {
+    public ResponseEntity<?> removeFromCart(@PathVariable Long cartItemId, HttpServletRequest httpRequest) {
         Long userId = getCurrentUserId();
-        CartResponse cart = cartService.removeFromCart(userId, cartItemId);
+        if (isDeltaRequested(httpRequest)) {
+            return ResponseEntity.ok(cartEngine.applyBatchDelta(userId, single(CartOperationRequest.builder()
+                    .type(CartOperationRequest.Type.REMOVE)
+                    .cartItemId(cartItemId)
+                    .build())));
+        }
+        CartResponse cart = cartEngine.removeFromCart(userId, cartItemId);
+        return ResponseEntity.ok(cart);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> applyBatch(@Valid @RequestBody CartBatchRequest request, HttpServletRequest httpRequest) {
+        Long userId = getCurrentUserId();
+        if (isDeltaRequested(httpRequest)) {
+            return ResponseEntity.ok(cartEngine.applyBatchDelta(userId, request));
+        }
+        CartResponse cart = cartEngine.applyBatch(userId, request);
         return ResponseEntity.ok(cart);
     }
 
     @DeleteMapping("/clear")
     public ResponseEntity<CartResponse> clearCart() {
         Long userId = getCurrentUserId();
-        CartResponse cart = cartService.clearCart(userId);
+        CartResponse cart = cartEngine.clearCart(userId);
         return ResponseEntity.ok(cart);
     }
 
     @GetMapping("/count")
     public ResponseEntity<Map<String, Integer>> getCartItemCount() {
         Long userId = getCurrentUserId();
-        Integer count = cartService.getCartItemCount(userId);
+        Integer count = cartEngine.getCartItemCount(userId);
         return ResponseEntity.ok(Map.of("count", count));
     }
 
     @PostMapping("/checkout")
     public ResponseEntity<OrderConfirmationResponse> checkout() {
         try {
-            String userEmail = getCurrentUserEmail();
+            Long userId = getCurrentUserId();
             
             // Sepeti siparişe dönüştür
             OrderResponse orderResponse = orderService.createOrderFromCart(
@@ -84,7 +126,7 @@ public class CartController {
                     .phoneNumber("Varsayılan telefon")   // Frontend'den gelecek
                     .notes("Cart checkout")              // Frontend'den gelecek
                     .build(),
-                userEmail
+                userId
             );
             
             // Order confirmation response oluştur
@@ -116,31 +158,24 @@ public class CartController {
         }
     }
 
-    // Helper method to get current user ID from security context
-    private Long getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("User not authenticated");
-        }
-        
-        // Get email from JWT token
-        String email = authentication.getName();
-        
-        // Find user by email and return ID
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        
-        return user.getId();
+    // Delta mode ("X-Cart-Response: delta" or "?response=delta"): the mutation answers with only the
+    // changed lines, the new totals and the cart version instead of the whole cart
+    private boolean isDeltaRequested(HttpServletRequest httpRequest) {
+        return DELTA_MODE.equalsIgnoreCase(httpRequest.getHeader(RESPONSE_MODE_HEADER))
+                || DELTA_MODE.equalsIgnoreCase(httpRequest.getParameter(RESPONSE_MODE_PARAM));
     }
 
-    // Helper method to get current user email from security context
-    private String getCurrentUserEmail() {
+    private CartBatchRequest single(CartOperationRequest operation) {
+        return CartBatchRequest.builder().operations(List.of(operation)).build();
+    }
+
+    // The filter already put the loaded User into the security context; its id is all the cart needs
+    private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof User user)) {
             throw new RuntimeException("User not authenticated");
         }
-        
-        // Get email from JWT token
-        return authentication.getName();
+        return user.getId();
     }
-}
\ No newline at end of file
+}
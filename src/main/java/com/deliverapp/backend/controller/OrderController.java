@@ -2,14 +2,16 @@ package com.deliverapp.backend.controller;
 
 import com.deliverapp.backend.dto.request.CreateOrderRequest;
 import com.deliverapp.backend.dto.request.UpdateOrderStatusRequest;
+import com.deliverapp.backend.dto.response.CursorPage;
 import com.deliverapp.backend.dto.response.OrderResponse;
+import com.deliverapp.backend.model.User;
 import com.deliverapp.backend.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -27,10 +29,9 @@ public class OrderController {
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
-            Authentication authentication) {
+            @AuthenticationPrincipal User user) {
         
-        String userEmail = authentication.getName();
-        OrderResponse order = orderService.createOrderFromCart(request, userEmail);
+        OrderResponse order = orderService.createOrderFromCart(request, user.getId());
         
         return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
@@ -42,10 +43,23 @@ public class OrderController {
     public ResponseEntity<Page<OrderResponse>> getUserOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            Authentication authentication) {
+            @AuthenticationPrincipal User user) {
         
-        String userEmail = authentication.getName();
-        Page<OrderResponse> orders = orderService.getUserOrders(userEmail, page, size);
+        Page<OrderResponse> orders = orderService.getUserOrders(user.getId(), page, size);
+        
+        return ResponseEntity.ok(orders);
+    }
+    
+    /**
+     * Kullanıcının siparişlerini imleç ile getir (cursor parametresi varsa; ilk sayfa için boş)
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<OrderResponse>> getUserOrdersBefore(
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal User user) {
+        
+        CursorPage<OrderResponse> orders = orderService.getUserOrdersBefore(user.getId(), cursor, size);
         
         return ResponseEntity.ok(orders);
     }
@@ -56,10 +70,9 @@ public class OrderController {
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> getOrderById(
             @PathVariable Long orderId,
-            Authentication authentication) {
+            @AuthenticationPrincipal User user) {
         
-        String userEmail = authentication.getName();
-        OrderResponse order = orderService.getOrderById(orderId, userEmail);
+        OrderResponse order = orderService.getOrderById(orderId, user.getId());
         
         return ResponseEntity.ok(order);
     }
@@ -69,10 +82,9 @@ public class OrderController {
      */
     @GetMapping("/active")
     public ResponseEntity<List<OrderResponse>> getActiveOrders(
-            Authentication authentication) {
+            @AuthenticationPrincipal User user) {
         
-        String userEmail = authentication.getName();
-        List<OrderResponse> activeOrders = orderService.getActiveOrders(userEmail);
+        List<OrderResponse> activeOrders = orderService.getActiveOrders(user.getId());
         
         return ResponseEntity.ok(activeOrders);
     }
@@ -84,9 +96,7 @@ public class OrderController {
     public ResponseEntity<OrderResponse> updateOrderStatus(
             @PathVariable Long orderId,
             @Valid @RequestBody UpdateOrderStatusRequest request,
-            Authentication authentication) {
-        
-        String userEmail = authentication.getName();
+            @AuthenticationPrincipal User user) {
         
         // Kullanıcılar sadece CANCELLED status'una geçiş yapabilir
         if (!"CANCELLED".equals(request.getOrderStatus())) {
@@ -94,7 +104,7 @@ public class OrderController {
                     .build();
         }
         
-        OrderResponse updatedOrder = orderService.updateOrderStatus(orderId, request, userEmail);
+        OrderResponse updatedOrder = orderService.updateOrderStatus(orderId, request, user.getId());
         
         return ResponseEntity.ok(updatedOrder);
     }
@@ -105,10 +115,9 @@ public class OrderController {
     @GetMapping("/by-number/{orderNumber}")
     public ResponseEntity<OrderResponse> getOrderByNumber(
             @PathVariable String orderNumber,
-            Authentication authentication) {
+            @AuthenticationPrincipal User user) {
         
-        String userEmail = authentication.getName();
-        OrderResponse order = orderService.getOrderByNumber(orderNumber, userEmail);
+        OrderResponse order = orderService.getOrderByNumber(orderNumber, user.getId());
         
         return ResponseEntity.ok(order);
     }
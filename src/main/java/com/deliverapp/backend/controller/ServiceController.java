@@ -1,5 +1,6 @@
 package com.deliverapp.backend.controller;
 
+import com.deliverapp.backend.catalog.CatalogVersion;
 import com.deliverapp.backend.dto.request.ServiceRequest;
 import com.deliverapp.backend.dto.response.ServiceResponse;
 
@@ -8,6 +9,7 @@ import com.deliverapp.backend.service.ServiceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,14 +20,22 @@ import java.util.stream.Collectors;
 public class ServiceController {
     @Autowired
     private ServiceService serviceService;
+    @Autowired
+    private CatalogVersion catalogVersion;
 
     @GetMapping
-    public List<ServiceResponse> getAllServices() {
+    public List<ServiceResponse> getAllServices(WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
         return serviceService.getAllServices().stream().map(this::toResponse).collect(Collectors.toList());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ServiceResponse> getServiceById(@PathVariable Long id) {
+    public ResponseEntity<ServiceResponse> getServiceById(@PathVariable Long id, WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
         return serviceService.getServiceById(id)
             .map(service -> ResponseEntity.ok(toResponse(service)))
             .orElse(ResponseEntity.notFound().build());
@@ -58,6 +68,10 @@ public class ServiceController {
         return ResponseEntity.noContent().build();
     }
 
+    private boolean notModified(WebRequest webRequest) {
+        return webRequest.checkNotModified(catalogVersion.eTag(), catalogVersion.lastModified());
+    }
+
     private ServiceResponse toResponse(com.deliverapp.backend.model.Service service) {
         return ServiceResponse.builder()
                 .id(service.getId())
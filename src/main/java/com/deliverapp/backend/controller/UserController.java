@@ -3,6 +3,7 @@ package com.deliverapp.backend.controller;
 import com.deliverapp.backend.dto.response.UserResponse;
 import com.deliverapp.backend.model.User;
 import com.deliverapp.backend.repository.UserRepository;
+import com.deliverapp.backend.security.ClaimsUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -19,13 +20,15 @@ public class UserController {
     @GetMapping("/me")
     public ResponseEntity<UserResponse> getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof User principal)) {
             return ResponseEntity.status(401).build();
         }
 
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Stateless JWT modunda principal yalnızca token claim'lerini (id, email, rol) taşır
+        User user = principal instanceof ClaimsUser
+                ? userRepository.findById(principal.getId()).orElseThrow(() -> new RuntimeException("User not found"))
+                : principal;
 
         UserResponse response = UserResponse.builder()
                 .id(user.getId())
@@ -0,0 +1,21 @@
+package com.deliverapp.backend.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.Builder;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartBatchRequest {
+
+    @NotEmpty(message = "En az bir işlem gereklidir")
+    @Size(max = 100, message = "Tek istekte en fazla 100 işlem yapılabilir")
+    private List<@Valid CartOperationRequest> operations;
+}
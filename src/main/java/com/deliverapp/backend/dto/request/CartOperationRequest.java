@@ -0,0 +1,40 @@
+package com.deliverapp.backend.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.Builder;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+// One step of a batch cart request: ADD uses productId/productVariantId, UPDATE and REMOVE use cartItemId
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartOperationRequest {
+
+    public enum Type { ADD, UPDATE, REMOVE }
+
+    @NotNull(message = "İşlem tipi gereklidir")
+    private Type type;
+    private Long productId;
+    private Long productVariantId;
+    private Long cartItemId;
+    private Integer quantity;
+    private Map<String, Object> selectedOptions;
+    private String notes;
+
+    @AssertTrue(message = "ADD için ürün ve pozitif adet, UPDATE ve REMOVE için sepet ürünü gereklidir")
+    @JsonIgnore
+    public boolean isComplete() {
+        if (type == null) {
+            return true;
+        }
+        return type == Type.ADD
+                ? productId != null && quantity != null && quantity > 0
+                : cartItemId != null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.deliverapp.backend.dto.response;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+// Answer to a cart mutation in delta mode: only the lines it touched, the new totals and the cart version
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartDeltaResponse {
+    private Long cartId;
+    private Long version;
+    private BigDecimal totalAmount;
+    private Integer totalItems;
+    private List<CartItemResponse> changedItems;
+    private List<Long> removedItemIds;
+}
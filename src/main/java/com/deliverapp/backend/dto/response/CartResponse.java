@@ -18,6 +18,7 @@ public class CartResponse {
     private BigDecimal totalAmount;
     private Integer totalItems;
     private Boolean isEmpty;
+    private Long version; // Increases with every change; delta responses carry the same number
     private List<CartItemResponse> cartItems;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
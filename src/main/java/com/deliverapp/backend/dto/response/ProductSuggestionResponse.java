@@ -0,0 +1,15 @@
+package com.deliverapp.backend.dto.response;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSuggestionResponse {
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,9 @@
+package com.deliverapp.backend.exception;
+
+// Password hashing pool and queue are full; answered with 429 so the client backs off
+public class PasswordHashingBusyException extends RuntimeException {
+    
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
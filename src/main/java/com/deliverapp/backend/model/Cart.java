@@ -3,6 +3,7 @@ package com.deliverapp.backend.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -28,6 +29,14 @@ public class Cart {
     @Column(name = "total_items")
     private Integer totalItems = 0;
 
+    // Change counter for clients patching their local cart from delta responses. Bumped under the
+    // cart row lock (CartRepository.findByUserIdForUpdate), so every state has its own number. Not a
+    // JPA @Version: a stale client never causes an optimistic locking failure here. The column
+    // default fills rows that existed before the column was added
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
     @Column(name = "is_active")
     private Boolean isActive = true;
 
@@ -51,6 +60,16 @@ public class Cart {
         updatedAt = LocalDateTime.now();
     }
 
+    // Adds the change of a single line to the totals, so mutations don't need to load every item
+    public void applyLineDelta(int quantityDelta, BigDecimal subtotalDelta) {
+        totalItems = (totalItems != null ? totalItems : 0) + quantityDelta;
+        totalAmount = (totalAmount != null ? totalAmount : BigDecimal.ZERO).add(subtotalDelta);
+    }
+
+    public void nextVersion() {
+        version = (version != null ? version : 0L) + 1;
+    }
+
     // Helper methods for cart operations
     public void calculateTotals() {
         if (cartItems != null) {
@@ -0,0 +1,28 @@
+package com.deliverapp.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Single row holding the catalog version shared by all instances (see CatalogVersion)
+@Entity
+@Table(name = "catalog_revision")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRevision {
+
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long version;
+
+    // UTC, whole seconds (the precision of Last-Modified)
+    @Column(name = "modified_at", nullable = false)
+    private LocalDateTime modifiedAt;
+}
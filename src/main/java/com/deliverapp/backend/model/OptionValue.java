@@ -1,5 +1,6 @@
 package com.deliverapp.backend.model;
 
+import com.deliverapp.backend.catalog.CatalogEntityListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 @Setter
 @Getter
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "option_values")
 public class OptionValue {
     // Getters and setters
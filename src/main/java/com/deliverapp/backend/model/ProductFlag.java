@@ -1,5 +1,6 @@
 package com.deliverapp.backend.model;
 
+import com.deliverapp.backend.catalog.CatalogEntityListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 @Setter
 @Getter
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "product_flags")
 public class ProductFlag {
     // Getters and setters
@@ -0,0 +1,29 @@
+package com.deliverapp.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Logged-out token in the database revocation store; rows are purged once the token has expired
+@Entity
+@Table(name = "revoked_tokens")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+
+    // SHA-256 of the token, Base64 encoded
+    @Id
+    @Column(name = "token_id", length = 44)
+    private String tokenId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Lets other instances pick up new revocations incrementally (see RevocationBloomFilter)
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
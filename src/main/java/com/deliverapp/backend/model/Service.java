@@ -1,9 +1,11 @@
 package com.deliverapp.backend.model;
 
+import com.deliverapp.backend.catalog.CatalogEntityListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "services")
 public class Service {
     @Id
@@ -18,8 +18,8 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     // Find all items in a cart
     List<CartItem> findByCartOrderByCreatedAtDesc(Cart cart);
     
-    // Find cart item by cart and product
-    Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
+    // Find cart item by cart and product (the line without a variant)
+    Optional<CartItem> findByCartAndProductAndProductVariantIsNull(Cart cart, Product product);
     
     // Find cart item by cart, product and variant
     Optional<CartItem> findByCartAndProductAndProductVariant(Cart cart, Product product, ProductVariant productVariant);
@@ -28,6 +28,11 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("SELECT ci FROM CartItem ci WHERE ci.cart.id = :cartId ORDER BY ci.createdAt DESC")
     List<CartItem> findByCartId(@Param("cartId") Long cartId);
     
+    // Find cart items by cart ID with product and variant (for building responses without N+1)
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product LEFT JOIN FETCH ci.productVariant " +
+           "WHERE ci.cart.id = :cartId ORDER BY ci.createdAt DESC")
+    List<CartItem> findByCartIdWithProducts(@Param("cartId") Long cartId);
+    
     // Get total quantity of items in cart
     @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.cart.id = :cartId")
     Integer getTotalQuantityByCartId(@Param("cartId") Long cartId);
@@ -2,7 +2,9 @@ package com.deliverapp.backend.repository;
 
 import com.deliverapp.backend.model.Cart;
 import com.deliverapp.backend.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,10 +21,21 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c WHERE c.user.id = :userId AND c.isActive = true")
     Optional<Cart> findByUserIdAndIsActiveTrue(@Param("userId") Long userId);
     
+    // Mutations take the cart row lock first: totals and version are read, moved and written back,
+    // so concurrent requests on the same cart must not interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.user.id = :userId AND c.isActive = true")
+    Optional<Cart> findByUserIdForUpdate(@Param("userId") Long userId);
+    
     // Check if user has active cart
     boolean existsByUserAndIsActiveTrue(User user);
     
     // Find cart with cart items (eager loading)
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.cartItems WHERE c.user.id = :userId AND c.isActive = true")
     Optional<Cart> findByUserIdWithCartItems(@Param("userId") Long userId);
+    
+    // Read path for GET /api/cart: cart, items, products and variants in a single query
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.product " +
+           "LEFT JOIN FETCH ci.productVariant WHERE c.user.id = :userId AND c.isActive = true")
+    Optional<Cart> findByUserIdWithItemsAndProducts(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.deliverapp.backend.repository;
+
+import com.deliverapp.backend.model.CatalogRevision;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CatalogRevisionRepository extends JpaRepository<CatalogRevision, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM CatalogRevision r WHERE r.id = :id")
+    Optional<CatalogRevision> findByIdForUpdate(@Param("id") Long id);
+}
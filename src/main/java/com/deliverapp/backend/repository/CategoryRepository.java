@@ -28,4 +28,8 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     
     @Query("SELECT c FROM Category c WHERE c.service.id = :serviceId AND c.parent IS NULL AND c.isActive = true ORDER BY c.sortOrder")
     List<Category> findRootCategoriesByServiceId(@Param("serviceId") Long serviceId);
+
+    // Source of the in-memory category tree: every active category with its service in one query
+    @Query("SELECT c FROM Category c JOIN FETCH c.service WHERE c.isActive = true")
+    List<Category> findAllActiveWithService();
 }
\ No newline at end of file
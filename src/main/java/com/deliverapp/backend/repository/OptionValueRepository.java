@@ -4,6 +4,7 @@ import com.deliverapp.backend.model.OptionValue;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +13,7 @@ public interface OptionValueRepository extends JpaRepository<OptionValue, Long>
     
     List<OptionValue> findByOptionGroupIdAndIsActiveTrue(Long optionGroupId);
     List<OptionValue> findByOptionGroupIdAndIsActiveTrueOrderBySortOrderAsc(Long optionGroupId);
+    List<OptionValue> findByOptionGroupIdInAndIsActiveTrueOrderBySortOrderAsc(Collection<Long> optionGroupIds);
     
     Optional<OptionValue> findByIdAndIsActiveTrue(Long id);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.deliverapp.backend.repository;
 
 import com.deliverapp.backend.model.Order;
 import com.deliverapp.backend.model.Order.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,6 +20,14 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Kullanıcının tüm siparişlerini getir (sayfalama ile) - Basic query
     Page<Order> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
+    // Keyset sayfalama: (createdAt, id) sırasına göre ilk sayfa ve verilen anahtardan sonraki sayfalar (OFFSET/COUNT yok)
+    List<Order> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByUserIdBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id, Limit limit);
+    
     // Kullanıcının belirli statusdaki siparişlerini getir - Basic query
     Page<Order> findByUserIdAndOrderStatusOrderByCreatedAtDesc(Long userId, OrderStatus orderStatus, Pageable pageable);
     
@@ -0,0 +1,27 @@
+package com.deliverapp.backend.repository;
+
+import com.deliverapp.backend.model.Product;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns a product list card needs. Selected with a constructor expression, so list queries
+ * skip the description TEXT column and never hydrate Product entities.
+ */
+public record ProductListRow(
+        Long id,
+        String name,
+        String shortDescription,
+        Long serviceId,
+        String serviceName,
+        Long categoryId,
+        String categoryName,
+        String key,
+        String sku,
+        Product.ProductType productType,
+        String attributesJson,
+        Boolean isActive,
+        Integer sortOrder,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -4,6 +4,7 @@ import com.deliverapp.backend.model.ProductPricing;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +13,7 @@ public interface ProductPricingRepository extends JpaRepository<ProductPricing,
     
     List<ProductPricing> findByProductIdAndIsActiveTrue(Long productId);
     List<ProductPricing> findByProductIdAndIsActiveTrueOrderByEffectiveFromDesc(Long productId);
+    List<ProductPricing> findByProductIdInAndIsActiveTrue(Collection<Long> productIds);
     
     Optional<ProductPricing> findByIdAndIsActiveTrue(Long id);
     Optional<ProductPricing> findByProductIdAndIsActiveTrueAndEffectiveFromLessThanEqualAndEffectiveUntilGreaterThanEqual(
@@ -1,24 +1,22 @@
 package com.deliverapp.backend.repository;
 
 import com.deliverapp.backend.model.Product;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByCategoryIdAndIsActiveTrue(Long categoryId, Pageable pageable);
-    
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByServiceIdAndIsActiveTrue(Long serviceId, Pageable pageable);
-    
     @EntityGraph(attributePaths = {"service", "category"})
     Optional<Product> findByIdAndIsActiveTrue(Long id);
     
@@ -28,27 +26,60 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @EntityGraph(attributePaths = {"service", "category"})
     Optional<Product> findBySkuAndIsActiveTrue(String sku);
     
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByNameContainingIgnoreCaseAndIsActiveTrue(String name, Pageable pageable);
-    
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByNameContainingIgnoreCaseAndServiceIdAndIsActiveTrue(String name, Long serviceId, Pageable pageable);
-    
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByNameContainingIgnoreCaseAndCategoryIdAndIsActiveTrue(String name, Long categoryId, Pageable pageable);
-    
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByNameContainingIgnoreCaseAndServiceIdAndCategoryIdAndIsActiveTrue(String name, Long serviceId, Long categoryId, Pageable pageable);
-    
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByServiceIdAndCategoryIdAndIsActiveTrue(Long serviceId, Long categoryId, Pageable pageable);
-    
-    @EntityGraph(attributePaths = {"service", "category"})
-    Page<Product> findByIsActiveTrue(Pageable pageable);
-    
     @EntityGraph(attributePaths = {"service", "category"})
     List<Product> findByServiceIdAndIsActiveTrueOrderBySortOrderAsc(Long serviceId);
     
     @EntityGraph(attributePaths = {"service", "category"})
     List<Product> findByCategoryIdAndIsActiveTrueOrderBySortOrderAsc(Long categoryId);
+
+    // List views select ProductListRow instead of entities (see LIST_ROW); detail views keep the entity
+    String LIST_ROW = "SELECT new com.deliverapp.backend.repository.ProductListRow(p.id, p.name, p.shortDescription, " +
+            "s.id, s.name, c.id, c.name, p.key, p.sku, p.productType, p.attributesJson, p.isActive, p.sortOrder, " +
+            "p.createdAt, p.updatedAt) FROM Product p JOIN p.service s JOIN p.category c ";
+
+    // List pages are Slices: callers never use the total, so no count(*) query is run
+    @Query(LIST_ROW + "WHERE c.id = :categoryId AND p.isActive = true")
+    Slice<ProductListRow> findListRowsByCategory(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @Query(LIST_ROW + "WHERE s.id = :serviceId AND p.isActive = true")
+    Slice<ProductListRow> findListRowsByService(@Param("serviceId") Long serviceId, Pageable pageable);
+
+    @Query(LIST_ROW + "WHERE s.id = :serviceId AND c.id = :categoryId AND p.isActive = true")
+    Slice<ProductListRow> findListRowsByServiceAndCategory(@Param("serviceId") Long serviceId, @Param("categoryId") Long categoryId,
+                                                           Pageable pageable);
+
+    @Query(LIST_ROW + "WHERE p.isActive = true")
+    Slice<ProductListRow> findListRows(Pageable pageable);
+
+    @Query(LIST_ROW + "WHERE p.id IN :ids")
+    List<ProductListRow> findListRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pages ordered by (sortOrder, id): rows after the given key, no OFFSET and no count.
+    // The first page passes Integer.MIN_VALUE / 0 as the key. sort_order is nullable; a NULL would
+    // match neither comparison and drop out of every page, so it is compared and ordered as 0
+    String SORT_KEY = "COALESCE(p.sortOrder, 0)";
+    String AFTER_KEY = "AND (" + SORT_KEY + " > :sortOrder OR (" + SORT_KEY + " = :sortOrder AND p.id > :id)) " +
+            "ORDER BY " + SORT_KEY + ", p.id";
+
+    @Query(LIST_ROW + "WHERE c.id = :categoryId AND p.isActive = true " +
+           AFTER_KEY)
+    List<ProductListRow> findListRowsByCategoryAfter(@Param("categoryId") Long categoryId, @Param("sortOrder") Integer sortOrder,
+                                                     @Param("id") Long id, Limit limit);
+
+    @Query(LIST_ROW + "WHERE s.id = :serviceId AND p.isActive = true " +
+           AFTER_KEY)
+    List<ProductListRow> findListRowsByServiceAfter(@Param("serviceId") Long serviceId, @Param("sortOrder") Integer sortOrder,
+                                                    @Param("id") Long id, Limit limit);
+
+    @Query(LIST_ROW + "WHERE s.id = :serviceId AND c.id = :categoryId AND p.isActive = true " +
+           AFTER_KEY)
+    List<ProductListRow> findListRowsByServiceAndCategoryAfter(@Param("serviceId") Long serviceId, @Param("categoryId") Long categoryId,
+                                                               @Param("sortOrder") Integer sortOrder, @Param("id") Long id, Limit limit);
+
+    @Query(LIST_ROW + "WHERE p.isActive = true " +
+           AFTER_KEY)
+    List<ProductListRow> findListRowsAfter(@Param("sortOrder") Integer sortOrder, @Param("id") Long id, Limit limit);
+
+    // Source of the product search index; service and category are only read by id
+    List<Product> findAllByIsActiveTrue();
 }
\ No newline at end of file
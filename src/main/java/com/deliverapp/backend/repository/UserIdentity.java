@@ -0,0 +1,5 @@
+package com.deliverapp.backend.repository;
+
+// The unique columns of a user, all registration needs to tell which one is taken
+public record UserIdentity(String email, String username) {
+}
@@ -1,8 +1,13 @@
 package com.deliverapp.backend.repository;
 
+import com.deliverapp.backend.model.Role;
 import com.deliverapp.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -11,5 +16,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    @Query("SELECT u.role FROM User u WHERE u.id = :id")
+    Optional<Role> findRoleById(Long id);
+
+    // Registration checks both unique columns in one round trip
+    @Query("SELECT new com.deliverapp.backend.repository.UserIdentity(u.email, u.username) FROM User u "
+            + "WHERE u.email = :email OR u.username = :username")
+    List<UserIdentity> findIdentitiesByEmailOrUsername(String email, String username);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(Long id, String password);
 }
 
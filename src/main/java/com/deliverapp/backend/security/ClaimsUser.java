@@ -0,0 +1,17 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+
+/**
+ * Principal built from the signed claims of an access token in stateless mode. Only id, email
+ * and role are known; code that needs the other fields loads the user by id. Never persisted.
+ */
+public class ClaimsUser extends User {
+
+    public ClaimsUser(Long id, String email, Role role) {
+        setId(id);
+        setEmail(email);
+        setRole(role);
+    }
+}
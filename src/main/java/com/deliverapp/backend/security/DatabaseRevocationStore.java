@@ -0,0 +1,115 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.model.RevokedToken;
+import com.deliverapp.backend.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Revocations in the {@code revoked_tokens} table, so a logout survives restarts and is seen by
+ * every instance. Expired rows are deleted every {@code jwt.revocation.purge-interval}; the
+ * number of purged rows is published as {@code jwt.revocations.purged}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jwt.revocation.store", havingValue = "database")
+public class DatabaseRevocationStore implements RevocationStore, MeterBinder {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transaction;
+    private final Duration purgeInterval;
+    private final AtomicLong purged = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    public DatabaseRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${jwt.revocation.purge-interval:10m}") Duration purgeInterval) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.purgeInterval = purgeInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly, purgeInterval.toMillis(), purgeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(tokenId)
+                .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .revokedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return revokedTokenRepository.existsByTokenIdAndExpiresAtAfter(tokenId, LocalDateTime.now());
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public void forEachRevokedSince(Instant since, BiConsumer<String, Instant> action) {
+        LocalDateTime after = LocalDateTime.ofInstant(since, ZoneId.systemDefault());
+        for (RevokedToken row : revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(after, LocalDateTime.now())) {
+            action.accept(row.getTokenId(), row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    public int purgeExpired() {
+        int deleted = transaction.execute(status -> revokedTokenRepository.deleteExpired(LocalDateTime.now()));
+        purged.addAndGet(deleted);
+        return deleted;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.revocations.purged", purged, AtomicLong::get)
+                .description("Expired token revocations deleted from revoked_tokens")
+                .register(registry);
+    }
+
+    private void purgeQuietly() {
+        try {
+            purgeExpired();
+        } catch (RuntimeException e) {
+            log.warn("Purging expired token revocations failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.deliverapp.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Per-instance revocations. Each entry expires with its token and is purged by Caffeine's
+ * scheduler, so the store only ever holds tokens that are still valid; it is deliberately not
+ * size-bounded, since evicting a live revocation would re-enable the token. Size and purge
+ * counts are published as {@code cache.*} metrics with {@code cache=revokedTokens}.
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.revocation.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRevocationStore implements RevocationStore, MeterBinder {
+
+    private final Cache<String, Instant> revoked = Caffeine.newBuilder()
+            .expireAfter(new UntilExpiry())
+            .scheduler(Scheduler.systemScheduler())
+            .recordStats()
+            .build();
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        revoked.put(tokenId, expiresAt);
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return revoked.getIfPresent(tokenId) != null;
+    }
+
+    long size() {
+        revoked.cleanUp();
+        return revoked.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, revoked, "revokedTokens");
+    }
+
+    private static final class UntilExpiry implements Expiry<String, Instant> {
+
+        @Override
+        public long expireAfterCreate(String key, Instant expiresAt, long currentTime) {
+            long remaining = Duration.between(Instant.now(), expiresAt).toNanos();
+            return Math.max(remaining, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Instant expiresAt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, expiresAt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Instant expiresAt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.deliverapp.backend.security;
 
+import com.deliverapp.backend.model.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +11,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -23,6 +26,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
     private final TokenBlacklist tokenBlacklist;
+    private final StatelessAuthentication statelessAuthentication;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Override
     protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request,
@@ -41,17 +46,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
 
             try {
-                String username = jwtTokenProvider.getUsernameFromToken(token);
+                // İmza ve süre tek seferde doğrulanır; daha önce doğrulanmış token'ın claim'leri önbellekten gelir
+                Claims claims = verifiedTokenCache.get(token, jwtTokenProvider::parseToken);
+                String username = claims.getSubject();
 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    UserDetails userDetails = loadPrincipal(claims, username);
 
-                    if (jwtTokenProvider.validateToken(token)) {
-                        UsernamePasswordAuthenticationToken authToken =
-                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
+                    UsernamePasswordAuthenticationToken authToken =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (io.jsonwebtoken.ExpiredJwtException e) {
                 // Token süresi dolmuş
@@ -90,6 +95,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Stateless modda kullanıcı token claim'lerinden kurulur (rolü kısa ömürlü önbellekten gelir);
+     * claim taşımayan eski token'lar ve normal mod için kullanıcı veritabanından yüklenir.
+     */
+    private UserDetails loadPrincipal(Claims claims, String username) {
+        if (statelessAuthentication.isEnabled()) {
+            User claimed = jwtTokenProvider.getPrincipalFromClaims(claims);
+            if (claimed != null) {
+                return statelessAuthentication.resolve(claimed)
+                        .orElseThrow(() -> new UsernameNotFoundException("Kullanıcı bulunamadı: " + username));
+            }
+        }
+        return userDetailsService.loadUserByUsername(username);
+    }
+
     /**
      * Gelen HttpServletRequest'in "Authorization" başlığından JWT'yi çıkarır.
      * @param request Gelen istek
@@ -1,5 +1,7 @@
 package com.deliverapp.backend.security;
 
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,30 +14,43 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
-
-    @Value("${jwt.refresh-expiration:604800000}") // 7 gün default
-    private long jwtRefreshExpiration;
-
-    // Secret key'i Key objesine çeviriyoruz
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+
+    private final long jwtExpiration;
+    private final long jwtRefreshExpiration;
+
+    // Key ve parser bir kez kurulur; ikisi de immutable ve thread-safe
+    private final Key signingKey;
+    private final JwtParser jwtParser;
+
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.expiration}") long jwtExpiration,
+                            @Value("${jwt.refresh-expiration:604800000}") long jwtRefreshExpiration) { // 7 gün default
+        this.jwtExpiration = jwtExpiration;
+        this.jwtRefreshExpiration = jwtRefreshExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .claim("type", "access")
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .claim("type", "access");
+        // Stateless modda filtre kullanıcıyı bu claim'lerden kurar
+        if (userDetails instanceof User user && user.getId() != null) {
+            builder.claim(USER_ID_CLAIM, user.getId())
+                    .claim(ROLE_CLAIM, user.getRole().name());
+        }
+        return builder
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
@@ -48,10 +63,31 @@ public class JwtTokenProvider {
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .claim("type", "refresh")
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /**
+     * Token'ı tek seferde doğrular (imza ve süre) ve claim'leri döner. Filtre bir istek için
+     * yalnızca bunu çağırır; geçersiz token'da jjwt'nin {@link JwtException} alt tipleri fırlatılır.
+     */
+    public Claims parseToken(String token) {
+        return getClaimsFromToken(token);
+    }
+
+    /**
+     * Access token claim'lerinden kurulan, yalnızca id, email ve rol taşıyan kullanıcı.
+     * Claim'ler yoksa (eski token) null döner.
+     */
+    public User getPrincipalFromClaims(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new ClaimsUser(userId.longValue(), claims.getSubject(), Role.valueOf(role));
+    }
+
     public String getUsernameFromToken(String token) {
         return getClaimsFromToken(token).getSubject();
     }
@@ -65,11 +101,7 @@ public class JwtTokenProvider {
     }
 
     private Claims getClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenExpired(String token) {
@@ -83,8 +115,9 @@ public class JwtTokenProvider {
 
     public boolean validateToken(String token) {
         try {
+            // Süresi dolmuş token'ı parser zaten ExpiredJwtException ile reddeder
             getClaimsFromToken(token);
-            return !isTokenExpired(token);
+            return true;
         } catch (ExpiredJwtException ex) {
             // Token süresi dolmuş
             throw new ExpiredJwtException(ex.getHeader(), ex.getClaims(), "Token süresi dolmuş");
@@ -103,7 +136,7 @@ public class JwtTokenProvider {
         try {
             Claims claims = getClaimsFromToken(refreshToken);
             String tokenType = (String) claims.get("type");
-            return "refresh".equals(tokenType) && !isTokenExpired(refreshToken);
+            return "refresh".equals(tokenType);
         } catch (JwtException | IllegalArgumentException ex) {
             return false;
         }
@@ -0,0 +1,154 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a dedicated, bounded pool instead of the Tomcat worker threads. The caller still
+ * waits for its own hash, but at most {@code security.password.threads} hashes run at once and
+ * at most {@code security.password.queue-capacity} wait; beyond that the request fails fast with
+ * {@link PasswordHashingBusyException} (429) instead of starving every other endpoint.
+ * <p>
+ * Unless {@code security.password.bcrypt-strength} is set, the cost factor is calibrated at
+ * startup to the highest one whose hash stays within {@code security.password.target-latency}.
+ * Hashes stored with a lower cost are re-encoded on the next successful login
+ * ({@link #upgradeEncoding}, checked by AuthService.login); higher ones are kept, so instances
+ * that calibrated differently don't re-encode each other's hashes back and forth.
+ * Pool metrics are published as {@code executor.*} with {@code name=passwordHashing}.
+ */
+@Slf4j
+@Component
+public class OffloadedBCryptPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 16;
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final int strength;
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OffloadedBCryptPasswordEncoder(@Value("${security.password.bcrypt-strength:0}") int configuredStrength,
+                                          @Value("${security.password.target-latency:250ms}") Duration targetLatency,
+                                          @Value("${security.password.threads:0}") int threads,
+                                          @Value("${security.password.queue-capacity:64}") int queueCapacity) {
+        this.strength = configuredStrength > 0 ? configuredStrength : calibrate(targetLatency);
+        this.delegate = new BCryptPasswordEncoder(strength);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("BCrypt strength {} ({}), {} hashing threads, queue of {}", strength,
+                configuredStrength > 0 ? "configured" : "calibrated for " + targetLatency.toMillis() + " ms",
+                poolSize, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // The current cost is a floor: only weaker hashes are re-encoded on login
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "passwordHashing", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("security.password.rejected", rejected, AtomicLong::get)
+                .description("Password hashes refused because the hashing pool was saturated")
+                .register(registry);
+        Gauge.builder("security.password.bcrypt.strength", this, OffloadedBCryptPasswordEncoder::getStrength)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new PasswordHashingBusyException("Sunucu şu anda yoğun, lütfen biraz sonra tekrar deneyin");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Şifre işlemi kesildi", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Each extra cost step doubles the work, so one timing at the minimum cost predicts the rest
+    static int calibrate(Duration targetLatency) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode("calibration"); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long started = System.nanoTime();
+            probe.encode("calibration");
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        int calibrated = MIN_STRENGTH;
+        long predicted = best;
+        while (calibrated < MAX_STRENGTH && predicted * 2 <= targetLatency.toNanos()) {
+            predicted *= 2;
+            calibrated++;
+        }
+        return calibrated;
+    }
+}
@@ -0,0 +1,287 @@
+package com.deliverapp.backend.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Probabilistic front of the {@link RevocationStore}: "definitely not revoked" is answered from
+ * memory and only possible hits go to the store. Revocations are filed by the time slice their
+ * token expires in, one Bloom filter per slice, and the slices together cover one
+ * {@code jwt.expiration}; a slice whose tokens have all expired is simply reused, so the filters
+ * never need deletes and never fill up. A shared (database) store is re-read incrementally every
+ * {@code jwt.revocation.bloom.sync-interval}: a logout on another instance goes unnoticed here for up
+ * to that long, because a negative answer never reaches the store. If the re-read keeps failing, the
+ * filter stops trusting its negatives after three intervals and every check goes to the store until a
+ * sync succeeds again. The observed false-positive rate is published as
+ * {@code jwt.revocations.bloom.false_positive_rate}.
+ */
+@Slf4j
+@Component
+public class RevocationBloomFilter implements MeterBinder {
+
+    private static final int SLICES = 8;
+    // Re-read window overlap, covering commit delays and clock skew between instances
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevocationStore revocationStore;
+    private final boolean enabled;
+    private final long sliceMillis;
+    private final long horizonMillis;
+    private final int bitsPerSlice;
+    private final int hashes;
+    private final Duration syncInterval;
+    // Slots are replaced while other threads read them, so they are published through the array
+    private final AtomicReferenceArray<Slice> ring;
+    // Tokens that outlive the ring (e.g. refresh tokens), kept exactly; expired ones are purged by the sync task
+    private final Map<String, Instant> overflow = new ConcurrentHashMap<>();
+
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong positives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public RevocationBloomFilter(RevocationStore revocationStore,
+                                 @Value("${jwt.revocation.bloom.enabled:true}") boolean enabled,
+                                 @Value("${jwt.expiration}") long jwtExpiration,
+                                 @Value("${jwt.revocation.bloom.expected-revocations:100000}") long expectedRevocations,
+                                 @Value("${jwt.revocation.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${jwt.revocation.bloom.sync-interval:5s}") Duration syncInterval) {
+        this.revocationStore = revocationStore;
+        this.enabled = enabled;
+        this.sliceMillis = Math.max(jwtExpiration / SLICES, 1);
+        // A token revoked now expires within one lifetime, i.e. in one of the next SLICES + 1 slices
+        this.ring = new AtomicReferenceArray<>(SLICES + 2);
+        this.horizonMillis = sliceMillis * (SLICES + 1);
+        // Standard Bloom sizing for the revocations one slice is expected to hold. A check consults every
+        // live slice, so each one gets a share of the target rate
+        double perSlice = Math.max((double) expectedRevocations / SLICES, 1);
+        double perSliceRate = falsePositiveRate / ring.length();
+        this.bitsPerSlice = (int) Math.min(Math.ceil(-perSlice * Math.log(perSliceRate) / (Math.log(2) * Math.log(2))),
+                Integer.MAX_VALUE - 64);
+        this.hashes = Math.max(1, (int) Math.round((double) bitsPerSlice / perSlice * Math.log(2)));
+        this.syncInterval = syncInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (revocationStore.isShared()) {
+            sync();
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, syncInterval.toMillis(), syncInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void put(String tokenId, Instant expiresAt) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        if (expiresAtMillis - now > horizonMillis) {
+            overflow.put(tokenId, expiresAt);
+            return;
+        }
+        slice(expiresAtMillis / sliceMillis).add(tokenId);
+    }
+
+    /**
+     * Answers from the filter when it can: false means the token is definitely not revoked,
+     * otherwise the store decides.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (!enabled) {
+            return revocationStore.isRevoked(tokenId);
+        }
+        if (!mightContain(tokenId)) {
+            if (!syncIsStale()) {
+                negatives.incrementAndGet();
+                return false;
+            }
+            // Revocations made elsewhere may be missing from the filter
+            return revocationStore.isRevoked(tokenId);
+        }
+        positives.incrementAndGet();
+        boolean revoked = revocationStore.isRevoked(tokenId);
+        if (!revoked) {
+            falsePositives.incrementAndGet();
+        }
+        return revoked;
+    }
+
+    // Share of not-revoked tokens that still had to be looked up in the store
+    public double falsePositiveRate() {
+        long falseHits = falsePositives.get();
+        long notRevoked = negatives.get() + falseHits;
+        return notRevoked == 0 ? 0 : (double) falseHits / notRevoked;
+    }
+
+    public void sync() {
+        Instant started = Instant.now();
+        revocationStore.forEachRevokedSince(lastSync.minus(SYNC_OVERLAP), this::put);
+        lastSync = started;
+    }
+
+    int purgeOverflow() {
+        Instant now = Instant.now();
+        int before = overflow.size();
+        overflow.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        return before - overflow.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.revocations.bloom.negatives", negatives, AtomicLong::get)
+                .description("Revocation checks answered by the Bloom filter alone")
+                .register(registry);
+        FunctionCounter.builder("jwt.revocations.bloom.positives", positives, AtomicLong::get)
+                .description("Revocation checks passed on to the revocation store")
+                .register(registry);
+        Gauge.builder("jwt.revocations.bloom.false_positive_rate", this, RevocationBloomFilter::falsePositiveRate)
+                .description("Share of not-revoked tokens the Bloom filter could not rule out")
+                .register(registry);
+    }
+
+    private boolean mightContain(String tokenId) {
+        long currentSlice = System.currentTimeMillis() / sliceMillis;
+        for (int i = 0; i < ring.length(); i++) {
+            Slice slice = ring.get(i);
+            // Slices before the current one only hold expired tokens
+            if (slice != null && slice.number >= currentSlice && slice.mightContain(tokenId)) {
+                return true;
+            }
+        }
+        if (!overflow.isEmpty()) {
+            Instant expiresAt = overflow.get(tokenId);
+            if (expiresAt != null) {
+                if (expiresAt.isAfter(Instant.now())) {
+                    return true;
+                }
+                overflow.remove(tokenId);
+            }
+        }
+        return false;
+    }
+
+    private Slice slice(long number) {
+        int index = (int) (number % ring.length());
+        Slice slice = ring.get(index);
+        if (slice != null && slice.number == number) {
+            return slice;
+        }
+        synchronized (ring) {
+            slice = ring.get(index);
+            if (slice == null || slice.number != number) {
+                // The previous occupant of this slot belongs to a slice whose tokens have all expired
+                slice = new Slice(number, bitsPerSlice, hashes);
+                ring.set(index, slice);
+            }
+            return slice;
+        }
+    }
+
+    // Only a shared store can change behind this instance's back
+    private boolean syncIsStale() {
+        return revocationStore.isShared()
+                && Duration.between(lastSync, Instant.now()).compareTo(syncInterval.multipliedBy(3)) > 0;
+    }
+
+    private void syncQuietly() {
+        purgeOverflow();
+        if (!revocationStore.isShared()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Refreshing the token revocation filter failed: {}", e.getMessage());
+        }
+    }
+
+    private static final class Slice {
+        final long number;
+        private final AtomicLongArray words;
+        private final int bits;
+        private final int hashes;
+
+        Slice(long number, int bits, int hashes) {
+            this.number = number;
+            this.words = new AtomicLongArray((bits + 63) / 64);
+            this.bits = bits;
+            this.hashes = hashes;
+        }
+
+        void add(String tokenId) {
+            long[] hash = hash(tokenId);
+            for (int i = 0; i < hashes; i++) {
+                int bit = bit(hash, i);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String tokenId) {
+            long[] hash = hash(tokenId);
+            for (int i = 0; i < hashes; i++) {
+                int bit = bit(hash, i);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Double hashing (h1 + i * h2); the token id is already a SHA-256 digest, so its halves serve as h1 and h2
+        private int bit(long[] hash, int i) {
+            return (int) Math.floorMod(hash[0] + i * hash[1], (long) bits);
+        }
+
+        private static long[] hash(String tokenId) {
+            ByteBuffer digest = ByteBuffer.wrap(Base64.getDecoder().decode(tokenId));
+            return new long[]{digest.getLong(), digest.getLong() | 1};
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.deliverapp.backend.security;
+
+import java.time.Instant;
+import java.util.function.BiConsumer;
+
+/**
+ * Revoked (logged-out) tokens, keyed by the token's SHA-256 id. An entry only lives until the
+ * token would have expired anyway; after that the signature check rejects the token by itself.
+ * Selected with {@code jwt.revocation.store}: {@code memory} (default, per instance) or
+ * {@code database} (survives restarts, shared by all instances).
+ */
+public interface RevocationStore {
+
+    void revoke(String tokenId, Instant expiresAt);
+
+    boolean isRevoked(String tokenId);
+
+    // Whether other instances write to this store too, so local caches of it must be refreshed
+    default boolean isShared() {
+        return false;
+    }
+
+    // Unexpired revocations recorded after since, as (token id, expiry)
+    default void forEachRevokedSince(Instant since, BiConsumer<String, Instant> action) {
+    }
+}
@@ -13,8 +13,6 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -31,6 +29,8 @@ public class SecurityConfig {
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
     private final TokenBlacklist tokenBlacklist;
+    private final StatelessAuthentication statelessAuthentication;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     // UserDetailsService bean'i
     @Bean
@@ -39,16 +39,11 @@ public class SecurityConfig {
                 .orElseThrow(() -> new UsernameNotFoundException("Kullanıcı bulunamadı: " + email));
     }
 
-    // Password encoder bean'i
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     // JWT filter bean'i
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService(), tokenBlacklist);
+        return new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService(), tokenBlacklist, statelessAuthentication,
+                verifiedTokenCache);
     }
 
     // AuthenticationManager bean'i
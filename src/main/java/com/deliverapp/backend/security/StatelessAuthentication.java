@@ -0,0 +1,63 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+import com.deliverapp.backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Stateless JWT mode ({@code jwt.stateless.enabled}): the filter builds the principal from the
+ * signed {@code uid}/{@code role} claims instead of loading the user on every request. The only
+ * database read left is the user's current role, cached per user for {@code jwt.stateless.revalidate-after},
+ * so a role change or a deleted account takes effect within that window rather than at token expiry.
+ * Cache statistics are published as {@code cache.*} metrics with {@code cache=userRoles}.
+ */
+@Component
+public class StatelessAuthentication implements MeterBinder {
+
+    private final boolean enabled;
+    private final LoadingCache<Long, Optional<Role>> roles;
+
+    public StatelessAuthentication(UserRepository userRepository,
+                                   @Value("${jwt.stateless.enabled:false}") boolean enabled,
+                                   @Value("${jwt.stateless.revalidate-after:60s}") Duration revalidateAfter) {
+        this.enabled = enabled;
+        this.roles = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(revalidateAfter)
+                .recordStats()
+                .build(userRepository::findRoleById);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // The claimed user with its current role, or empty if the account no longer exists
+    public Optional<User> resolve(User claimed) {
+        return roles.get(claimed.getId()).map(role -> {
+            claimed.setRole(role);
+            return claimed;
+        });
+    }
+
+    // Called where this instance deletes a user, so it does not wait for the window. Any future
+    // role-changing code path must call it too; changes from other instances still wait for the window
+    public void evict(Long userId) {
+        roles.invalidate(userId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, roles, "userRoles");
+    }
+}
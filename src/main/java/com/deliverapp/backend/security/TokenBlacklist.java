@@ -1,18 +1,35 @@
 package com.deliverapp.backend.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component
+@RequiredArgsConstructor
 public class TokenBlacklist {
-    private final Set<String> blacklist = ConcurrentHashMap.newKeySet();
+    private final RevocationStore revocationStore;
+    private final RevocationBloomFilter revocationBloomFilter;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
 
+    // Token, süresi dolana kadar iptal listesinde tutulur; ham token değil hash'i saklanır
     public void blacklistToken(String token) {
-        blacklist.add(token);
+        Claims claims;
+        try {
+            claims = jwtTokenProvider.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return; // Süresi dolmuş, imzası geçersiz veya boş token filtrede zaten reddedilir
+        }
+        String tokenId = TokenHashes.sha256(token);
+        revocationStore.revoke(tokenId, claims.getExpiration().toInstant());
+        revocationBloomFilter.put(tokenId, claims.getExpiration().toInstant());
+        verifiedTokenCache.invalidate(token);
     }
 
     public boolean isBlacklisted(String token) {
-        return blacklist.contains(token);
+        // Çoğu token iptal edilmemiştir; bunu Bloom filtresi store'a gitmeden söyler
+        // Database store'da başka bir instance'taki logout burada en geç bir sync-interval sonra görülür
+        return revocationBloomFilter.isRevoked(TokenHashes.sha256(token));
     }
 }
@@ -1,24 +1,184 @@
 package com.deliverapp.backend.service;
 
 import com.deliverapp.backend.model.AuditLog;
-import com.deliverapp.backend.repository.AuditLogRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Audit entries are written off the request path: {@link #log} only puts the entry into a bounded
+ * buffer of {@code audit.log.buffer-size}, and a background writer inserts it with JDBC batches of
+ * up to {@code audit.log.flush-size}, at the latest {@code audit.log.flush-interval} after it was
+ * logged. The insert no longer belongs to the caller's transaction, so failure entries survive the
+ * rollback of the operation they describe. When the buffer is full, {@code audit.log.overflow-policy}
+ * decides: CALLER_RUNS inserts the entry synchronously as before, DROP discards it and counts it in
+ * {@code audit.log.dropped}. Entries still buffered at shutdown are written before the writer stops.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
-public class AuditLogService {
-    private final AuditLogRepository auditLogRepository;
+public class AuditLogService implements MeterBinder {
+
+    public enum OverflowPolicy {
+        CALLER_RUNS,
+        DROP
+    }
+
+    // Offered on shutdown to wake a writer waiting on an empty buffer; never written
+    private static final AuditLog WAKE_UP = new AuditLog();
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_logs (action, username, timestamp, details) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<AuditLog> buffer;
+    private final int flushSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private ExecutorService writer;
+    private volatile boolean running;
+
+    public AuditLogService(JdbcTemplate jdbcTemplate,
+                           @Value("${audit.log.buffer-size:8192}") int bufferSize,
+                           @Value("${audit.log.flush-size:200}") int flushSize,
+                           @Value("${audit.log.flush-interval:1s}") Duration flushInterval,
+                           @Value("${audit.log.overflow-policy:CALLER_RUNS}") OverflowPolicy overflowPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.flushSize = Math.max(flushSize, 1);
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-log-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        buffer.offer(WAKE_UP);
+        writer.shutdown();
+        writer.awaitTermination(flushInterval.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        // Whatever is still buffered, including entries offered while the writer was finishing
+        List<AuditLog> rest = new ArrayList<>(flushSize);
+        while (buffer.drainTo(rest, flushSize) > 0) {
+            rest.remove(WAKE_UP);
+            write(rest);
+            rest.clear();
+        }
+    }
 
     public void log(String action, String username, String details) {
-        AuditLog log = AuditLog.builder()
+        AuditLog entry = AuditLog.builder()
                 .action(action)
                 .username(username)
                 .timestamp(LocalDateTime.now())
                 .details(details)
                 .build();
-        auditLogRepository.save(log);
+        if (running && buffer.offer(entry)) {
+            return;
+        }
+        if (running && overflowPolicy == OverflowPolicy.DROP) {
+            dropped.incrementAndGet();
+            return;
+        }
+        // Buffer full (or writer not running): write through on the caller's thread
+        write(List.of(entry));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("audit.log.buffered", buffer, BlockingQueue::size)
+                .description("Audit entries waiting for the background writer")
+                .register(registry);
+        FunctionCounter.builder("audit.log.written", written, AtomicLong::get)
+                .description("Audit entries inserted")
+                .register(registry);
+        FunctionCounter.builder("audit.log.dropped", dropped, AtomicLong::get)
+                .description("Audit entries discarded because the buffer was full")
+                .register(registry);
+        FunctionCounter.builder("audit.log.failed", failed, AtomicLong::get)
+                .description("Audit entries lost to failed inserts")
+                .register(registry);
+    }
+
+    // A batch goes out when it reaches flush-size or when its oldest entry has waited flush-interval
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(flushSize);
+        long deadline = 0;
+        while (running) {
+            try {
+                AuditLog next = batch.isEmpty()
+                        ? buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS)
+                        : buffer.poll(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                if (next != null) {
+                    if (batch.isEmpty()) {
+                        deadline = System.nanoTime() + flushInterval.toNanos();
+                    }
+                    batch.add(next);
+                    buffer.drainTo(batch, flushSize - batch.size());
+                    if (!running) {
+                        batch.remove(WAKE_UP);
+                    }
+                }
+                if (batch.size() >= flushSize || (!batch.isEmpty() && System.nanoTime() - deadline >= 0)) {
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        write(batch);
+    }
+
+    private void write(List<AuditLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, entry) -> {
+                statement.setString(1, entry.getAction());
+                statement.setString(2, entry.getUsername());
+                statement.setTimestamp(3, Timestamp.valueOf(entry.getTimestamp()));
+                statement.setString(4, entry.getDetails());
+            });
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            log.error("Writing {} audit log entries failed: {}", batch.size(), e.getMessage(), e);
+        }
     }
 }
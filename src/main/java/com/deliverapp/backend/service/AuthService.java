@@ -4,18 +4,21 @@ package com.deliverapp.backend.service;
 import com.deliverapp.backend.dto.request.LoginRequest;
 import com.deliverapp.backend.dto.request.RegisterRequest;
 import com.deliverapp.backend.dto.response.AuthResponse;
+import com.deliverapp.backend.exception.PasswordHashingBusyException;
 import com.deliverapp.backend.model.Role;
 import com.deliverapp.backend.model.User;
+import com.deliverapp.backend.repository.UserIdentity;
 import com.deliverapp.backend.repository.UserRepository;
 import com.deliverapp.backend.security.JwtTokenProvider;
+import com.deliverapp.backend.security.StatelessAuthentication;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -24,6 +27,7 @@ public class AuthService {
         try {
             User user = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("Kullanıcı bulunamadı"));
             userRepository.delete(user);
+            statelessAuthentication.evict(userId);
             auditLogService.log("DELETE", user.getUsername(), "Kullanıcı hesabı silindi");
         } catch (Exception e) {
             auditLogService.log("DELETE-FAIL", String.valueOf(userId), "Kullanıcı silme başarısız: " + e.getMessage());
@@ -38,8 +42,10 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
-    private final AuthenticationManager authenticationManager;
     private final AuditLogService auditLogService;
+    private final StatelessAuthentication statelessAuthentication;
+    // Bilinmeyen email'de de bir hash karşılaştırması yapılır; yanıt süresi kullanıcının varlığını ele vermez
+    private volatile String unknownUserPassword;
 
     @Transactional
     public String register(RegisterRequest request) {
@@ -59,26 +65,36 @@ public class AuthService {
             throw new IllegalArgumentException("Şifre en az 6 karakter olmalıdır");
         }
         
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
+        String email = request.getEmail().trim().toLowerCase();
+        String username = request.getUsername().trim();
+
+        // Check if user already exists: email ve username tek sorguda
+        List<UserIdentity> existing = userRepository.findIdentitiesByEmailOrUsername(email, username);
+        if (existing.stream().anyMatch(identity -> identity.email().equals(email))) {
             auditLogService.log("REGISTER-FAIL", request.getEmail(), "Email zaten kayıtlı");
             throw new IllegalArgumentException("Bu email adresi zaten kayıtlı");
         }
         
-        if (userRepository.existsByUsername(request.getUsername())) {
+        if (!existing.isEmpty()) {
             auditLogService.log("REGISTER-FAIL", request.getUsername(), "Username zaten kayıtlı");
             throw new IllegalArgumentException("Bu kullanıcı adı zaten alınmış");
         }
 
         User user = User.builder()
-            .username(request.getUsername().trim())
-            .email(request.getEmail().trim().toLowerCase())
+            .username(username)
+            .email(email)
             .password(passwordEncoder.encode(request.getPassword()))
             .role(Role.USER)
             .emailVerified(false) // Email verification required
             .build();
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Kontrol ile kayıt arasında aynı email/username ile eşzamanlı kayıt: unique constraint yakalar
+            auditLogService.log("REGISTER-FAIL", request.getEmail(), "Email veya username zaten kayıtlı");
+            throw new IllegalArgumentException("Bu email adresi veya kullanıcı adı zaten kayıtlı");
+        }
         auditLogService.log("REGISTER", user.getUsername(), "Kullanıcı kaydı oluşturuldu");
 
         return jwtTokenProvider.generateToken(user);
@@ -89,32 +105,45 @@ public class AuthService {
             auditLogService.log("LOGIN-FAIL", "", "Email alanı boş!");
             throw new IllegalArgumentException("Email alanı boş!");
         }
+        // Şifresiz istek hash'e hiç ulaşmaz; kullanıcı var mı yok mu belli etmeden aynı cevap döner
+        if (request.getPassword() == null) {
+            auditLogService.log("LOGIN-FAIL", request.getEmail(), "Giriş başarısız: Şifre alanı boş");
+            throw new IllegalArgumentException("Geçersiz email veya şifre");
+        }
         
-        // Check if user exists before authentication attempt
-        if (!userRepository.existsByEmail(request.getEmail())) {
+        // Tek sorgu: kullanıcı + şifre hash'i, ardından doğrudan hash kontrolü
+        User user = userRepository.findByEmail(request.getEmail()).orElse(null);
+        if (user == null) {
+            passwordEncoder.matches(request.getPassword(), unknownUserPassword());
             auditLogService.log("LOGIN-FAIL", request.getEmail(), "Kullanıcı bulunamadı");
             throw new IllegalArgumentException("Geçersiz email veya şifre");
         }
         
-        try {
-            Authentication auth = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-            );
-            User authenticatedUser = (User) auth.getPrincipal();
-            auditLogService.log("LOGIN", authenticatedUser.getUsername(), "Kullanıcı giriş yaptı");
-            
-            String accessToken = jwtTokenProvider.generateToken(authenticatedUser);
-            String refreshToken = jwtTokenProvider.generateRefreshToken(authenticatedUser);
-            
-            return AuthResponse.builder()
-                    .token(accessToken)
-                    .refreshToken(refreshToken)
-                    .expiresIn(86400L) // 24 saat (saniye cinsinden)
-                    .build();
-        } catch (Exception e) {
-            auditLogService.log("LOGIN-FAIL", request.getEmail(), "Giriş başarısız: " + e.getMessage());
+        // PasswordHashingBusyException (429) burada yakalanmaz: şifre doğrulanamadı, yanlış şifre değil
+        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            auditLogService.log("LOGIN-FAIL", request.getEmail(), "Giriş başarısız: Geçersiz şifre");
             throw new IllegalArgumentException("Geçersiz email veya şifre");
         }
+        
+        // Daha düşük maliyetle saklanmış şifre yeni hash ile güncellenir (OffloadedBCryptPasswordEncoder)
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            try {
+                userRepository.updatePassword(user.getId(), passwordEncoder.encode(request.getPassword()));
+            } catch (PasswordHashingBusyException e) {
+                // Havuz dolu: giriş yine başarılı, güncelleme bir sonraki girişe kalır
+            }
+        }
+        
+        auditLogService.log("LOGIN", user.getUsername(), "Kullanıcı giriş yaptı");
+        
+        String accessToken = jwtTokenProvider.generateToken(user);
+        String refreshToken = jwtTokenProvider.generateRefreshToken(user);
+        
+        return AuthResponse.builder()
+                .token(accessToken)
+                .refreshToken(refreshToken)
+                .expiresIn(86400L) // 24 saat (saniye cinsinden)
+                .build();
     }
     
     public AuthResponse refreshToken(String refreshToken) {
@@ -143,5 +172,13 @@ public class AuthService {
             throw new IllegalArgumentException("Token yenileme başarısız");
         }
     }
-}
 
+    private String unknownUserPassword() {
+        String encoded = unknownUserPassword;
+        if (encoded == null) {
+            encoded = passwordEncoder.encode("userNotFoundPassword");
+            unknownUserPassword = encoded;
+        }
+        return encoded;
+    }
+}
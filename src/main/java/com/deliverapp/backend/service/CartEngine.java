@@ -0,0 +1,36 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.dto.request.AddToCartRequest;
+import com.deliverapp.backend.dto.request.CartBatchRequest;
+import com.deliverapp.backend.dto.request.UpdateCartItemRequest;
+import com.deliverapp.backend.dto.response.CartDeltaResponse;
+import com.deliverapp.backend.dto.response.CartResponse;
+
+/**
+ * Cart operations used by the API. {@link CartService} writes every mutation through to the
+ * database; the optional write-behind engine (cart.write-behind.enabled) keeps active carts in
+ * memory and writes them in batches.
+ */
+public interface CartEngine {
+
+    CartResponse getCart(Long userId);
+
+    CartResponse addToCart(Long userId, AddToCartRequest request);
+
+    CartResponse updateCartItem(Long userId, Long cartItemId, UpdateCartItemRequest request);
+
+    CartResponse removeFromCart(Long userId, Long cartItemId);
+
+    // Applies all operations or none of them and returns the cart once
+    CartResponse applyBatch(Long userId, CartBatchRequest request);
+
+    // Same as applyBatch, but answers with only the changed lines, the totals and the cart version
+    CartDeltaResponse applyBatchDelta(Long userId, CartBatchRequest request);
+
+    CartResponse clearCart(Long userId);
+
+    Integer getCartItemCount(Long userId);
+
+    // Makes sure the user's cart is in the database, e.g. before checkout reads it
+    void flush(Long userId);
+}
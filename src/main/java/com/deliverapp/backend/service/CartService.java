@@ -1,7 +1,11 @@
 package com.deliverapp.backend.service;
 
+import com.deliverapp.backend.catalog.ProductAttributes;
 import com.deliverapp.backend.dto.request.AddToCartRequest;
+import com.deliverapp.backend.dto.request.CartBatchRequest;
+import com.deliverapp.backend.dto.request.CartOperationRequest;
 import com.deliverapp.backend.dto.request.UpdateCartItemRequest;
+import com.deliverapp.backend.dto.response.CartDeltaResponse;
 import com.deliverapp.backend.dto.response.CartItemResponse;
 import com.deliverapp.backend.dto.response.CartResponse;
 import com.deliverapp.backend.model.*;
@@ -9,55 +13,230 @@ import com.deliverapp.backend.repository.*;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional
-public class CartService {
+public class CartService implements CartEngine {
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final ProductVariantRepository productVariantRepository;
     private final UserRepository userRepository;
+    private final ProductAttributes productAttributes;
     private final ObjectMapper objectMapper;
 
-    // Get or create user's cart
+    @Value("${cart.totals.consistency-check:false}")
+    private boolean totalsConsistencyCheck;
+
+    // Read-only: one query for cart, items, products and variants, no writes. Totals are kept
+    // up to date by the mutations, so they are not recalculated here. A user without a cart
+    // gets an empty response; the cart row is created by the first addToCart
+    @Transactional(readOnly = true)
+    @Override
     public CartResponse getCart(Long userId) {
+        Optional<Cart> cartOpt = cartRepository.findByUserIdWithItemsAndProducts(userId);
+        if (cartOpt.isEmpty()) {
+            return emptyCartResponse(userId);
+        }
+
+        Cart cart = cartOpt.get();
+        List<CartItem> cartItems = cart.getCartItems().stream()
+                .sorted(Comparator.comparing(CartItem::getCreatedAt).reversed())
+                .collect(Collectors.toList());
+        return convertToCartResponse(cart, cartItems);
+    }
+
+    // Add item to cart
+    @Override
+    public CartResponse addToCart(Long userId, AddToCartRequest request) {
+        Cart cart = getOrCreateCart(userId);
+        addLine(cart, request);
+        return convertToCartResponse(saveTotals(cart));
+    }
+
+    // Update cart item
+    @Override
+    public CartResponse updateCartItem(Long userId, Long cartItemId, UpdateCartItemRequest request) {
+        lockCart(userId);
+        CartItem cartItem = findOwnedItem(userId, cartItemId);
+        if (request.getQuantity() != null && request.getQuantity() <= 0) {
+            // If quantity is 0 or negative, remove the item
+            return removeFromCart(userId, cartItemId);
+        }
+        updateLine(cartItem, request);
+        return convertToCartResponse(saveTotals(cartItem.getCart()));
+    }
+
+    // Remove item from cart
+    @Override
+    public CartResponse removeFromCart(Long userId, Long cartItemId) {
+        lockCart(userId);
+        CartItem cartItem = findOwnedItem(userId, cartItemId);
+        Cart cart = cartItem.getCart();
+        removeLine(cartItem);
+        return convertToCartResponse(saveTotals(cart));
+    }
+
+    // Apply many operations in one transaction: if any of them fails, none is kept. The cart
+    // totals are saved, checked and turned into a response once, after the last operation
+    @Override
+    public CartResponse applyBatch(Long userId, CartBatchRequest request) {
+        return convertToCartResponse(applyOperations(userId, request, new LineChanges()));
+    }
+
+    // Only the touched lines are converted, so the response doesn't grow with the cart
+    @Override
+    public CartDeltaResponse applyBatchDelta(Long userId, CartBatchRequest request) {
+        LineChanges changes = new LineChanges();
+        Cart cart = applyOperations(userId, request, changes);
+        return CartDeltaResponse.builder()
+                .cartId(cart.getId())
+                .version(cart.getVersion())
+                .totalAmount(cart.getTotalAmount())
+                .totalItems(cart.getTotalItems())
+                .changedItems(changes.changed.values().stream()
+                        .map(this::convertToCartItemResponse)
+                        .collect(Collectors.toList()))
+                .removedItemIds(List.copyOf(changes.removed))
+                .build();
+    }
+
+    // Clear entire cart
+    @Override
+    public CartResponse clearCart(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        Optional<Cart> cartOpt = cartRepository.findByUserIdWithCartItems(userId);
-        
+        Optional<Cart> cartOpt = cartRepository.findByUserIdForUpdate(user.getId());
         if (cartOpt.isEmpty()) {
-            // Create new cart for user
-            Cart newCart = new Cart();
-            newCart.setUser(user);
-            newCart = cartRepository.save(newCart);
-            return convertToCartResponse(newCart);
+            throw new RuntimeException("Cart not found");
         }
-        
+
         Cart cart = cartOpt.get();
-        // Recalculate totals to ensure consistency
-        cart.calculateTotals();
+        cartItemRepository.deleteByCart(cart);
+
+        // Reset cart totals
+        cart.setTotalAmount(BigDecimal.ZERO);
+        cart.setTotalItems(0);
+        cart.nextVersion();
         cart = cartRepository.save(cart);
-        
+
         return convertToCartResponse(cart);
     }
 
-    // Add item to cart
-    public CartResponse addToCart(Long userId, AddToCartRequest request) {
+    // Get cart item count
+    @Override
+    public Integer getCartItemCount(Long userId) {
+        Optional<Cart> cartOpt = cartRepository.findByUserIdAndIsActiveTrue(userId);
+        if (cartOpt.isEmpty()) {
+            return 0;
+        }
+        return cartOpt.get().getTotalItems();
+    }
+    
+    // Every mutation is already written through, nothing to flush
+    @Override
+    public void flush(Long userId) {
+    }
+
+    // Get cart by user ID (for order creation)
+    public Cart getCartByUserId(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        return cartRepository.findByUserAndIsActiveTrue(user)
+                .orElseThrow(() -> new RuntimeException("Cart not found for user"));
+    }
+
+    // Helper methods
+    private Cart getOrCreateCart(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return cartRepository.findByUserIdForUpdate(userId)
+                .orElseGet(() -> {
+                    Cart newCart = new Cart();
+                    newCart.setUser(user);
+                    return cartRepository.save(newCart);
+                });
+    }
+
+    // Serializes mutations of one cart; items are read only after the lock is held, so the
+    // quantities a delta is computed from are current
+    private void lockCart(Long userId) {
+        cartRepository.findByUserIdForUpdate(userId);
+    }
+
+    private CartItem findOwnedItem(Long userId, Long cartItemId) {
+        CartItem cartItem = cartItemRepository.findById(cartItemId)
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+
+        // Verify the cart item belongs to the user
+        if (!cartItem.getCart().getUser().getId().equals(userId)) {
+            throw new RuntimeException("Cart item does not belong to user");
+        }
+        return cartItem;
+    }
+
+    // Lines touched by one request, for delta responses
+    private static final class LineChanges {
+        private final Map<Long, CartItem> changed = new LinkedHashMap<>();
+        private final Set<Long> removed = new LinkedHashSet<>();
+
+        void changed(CartItem cartItem) {
+            changed.put(cartItem.getId(), cartItem);
+        }
+
+        void removed(Long cartItemId) {
+            changed.remove(cartItemId);
+            removed.add(cartItemId);
+        }
+    }
+
+    private Cart applyOperations(Long userId, CartBatchRequest request, LineChanges changes) {
+        Cart cart = getOrCreateCart(userId);
+        for (CartOperationRequest operation : request.getOperations()) {
+            switch (operation.getType()) {
+                case ADD -> changes.changed(addLine(cart, toAddRequest(operation)));
+                case UPDATE -> {
+                    CartItem cartItem = findOwnedItem(userId, operation.getCartItemId());
+                    if (operation.getQuantity() != null && operation.getQuantity() <= 0) {
+                        removeLine(cartItem);
+                        changes.removed(cartItem.getId());
+                    } else {
+                        changes.changed(updateLine(cartItem, toUpdateRequest(operation)));
+                    }
+                }
+                case REMOVE -> {
+                    CartItem cartItem = findOwnedItem(userId, operation.getCartItemId());
+                    removeLine(cartItem);
+                    changes.removed(cartItem.getId());
+                }
+            }
+        }
+        return saveTotals(cart);
+    }
+
+    // The line helpers change items and move the cart totals by the line's delta; saving the
+    // cart is left to saveTotals
+    private CartItem addLine(Cart cart, AddToCartRequest request) {
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
@@ -67,23 +246,19 @@ public class CartService {
                     .orElseThrow(() -> new RuntimeException("Product variant not found"));
         }
 
-        // Get or create cart
-        Cart cart = cartRepository.findByUserAndIsActiveTrue(user)
-                .orElseGet(() -> {
-                    Cart newCart = new Cart();
-                    newCart.setUser(user);
-                    return cartRepository.save(newCart);
-                });
-
         // Check if item already exists in cart
         Optional<CartItem> existingItemOpt = variant != null
                 ? cartItemRepository.findByCartAndProductAndProductVariant(cart, product, variant)
-                : cartItemRepository.findByCartAndProduct(cart, product);
+                : cartItemRepository.findByCartAndProductAndProductVariantIsNull(cart, product);
 
         CartItem cartItem;
+        int previousQuantity = 0;
+        BigDecimal previousSubtotal = BigDecimal.ZERO;
         if (existingItemOpt.isPresent()) {
             // Update existing item quantity
             cartItem = existingItemOpt.get();
+            previousQuantity = cartItem.getQuantity();
+            previousSubtotal = subtotalOf(cartItem);
             cartItem.setQuantity(cartItem.getQuantity() + request.getQuantity());
         } else {
             // Create new cart item
@@ -107,31 +282,17 @@ public class CartService {
             cartItem.setNotes(request.getNotes());
         }
 
-        cartItemRepository.save(cartItem);
-
-        // Recalculate cart totals
-        cart.calculateTotals();
-        cart = cartRepository.save(cart);
-
-        return convertToCartResponse(cart);
+        cartItem = cartItemRepository.save(cartItem);
+        cart.applyLineDelta(cartItem.getQuantity() - previousQuantity, subtotalOf(cartItem).subtract(previousSubtotal));
+        return cartItem;
     }
 
-    // Update cart item
-    public CartResponse updateCartItem(Long userId, Long cartItemId, UpdateCartItemRequest request) {
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-
-        // Verify the cart item belongs to the user
-        if (!cartItem.getCart().getUser().getId().equals(userId)) {
-            throw new RuntimeException("Cart item does not belong to user");
-        }
+    private CartItem updateLine(CartItem cartItem, UpdateCartItemRequest request) {
+        int previousQuantity = cartItem.getQuantity();
+        BigDecimal previousSubtotal = subtotalOf(cartItem);
 
         // Update quantity
         if (request.getQuantity() != null) {
-            if (request.getQuantity() <= 0) {
-                // If quantity is 0 or negative, remove the item
-                return removeFromCart(userId, cartItemId);
-            }
             cartItem.setQuantity(request.getQuantity());
             cartItem.calculateSubtotal();
         }
@@ -147,83 +308,69 @@ public class CartService {
         }
 
         cartItemRepository.save(cartItem);
-
-        // Recalculate cart totals
-        Cart cart = cartItem.getCart();
-        cart.calculateTotals();
-        cart = cartRepository.save(cart);
-
-        return convertToCartResponse(cart);
+        cartItem.getCart().applyLineDelta(cartItem.getQuantity() - previousQuantity,
+                subtotalOf(cartItem).subtract(previousSubtotal));
+        return cartItem;
     }
 
-    // Remove item from cart
-    public CartResponse removeFromCart(Long userId, Long cartItemId) {
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-
-        // Verify the cart item belongs to the user
-        if (!cartItem.getCart().getUser().getId().equals(userId)) {
-            throw new RuntimeException("Cart item does not belong to user");
-        }
-
-        Cart cart = cartItem.getCart();
+    private void removeLine(CartItem cartItem) {
+        cartItem.getCart().applyLineDelta(-cartItem.getQuantity(), subtotalOf(cartItem).negate());
         cartItemRepository.delete(cartItem);
+    }
 
-        // Manual calculation using repository queries instead of collection
-        Integer totalItems = cartItemRepository.getTotalQuantityByCartId(cart.getId());
-        BigDecimal totalAmount = cartItemRepository.getTotalAmountByCartId(cart.getId());
-        
-        cart.setTotalItems(totalItems != null ? totalItems : 0);
-        cart.setTotalAmount(totalAmount != null ? totalAmount : BigDecimal.ZERO);
+    // One version step per request, however many lines it changed. The caller holds the cart row
+    // lock, so concurrent requests get distinct versions
+    private Cart saveTotals(Cart cart) {
+        cart.nextVersion();
         cart = cartRepository.save(cart);
-
-        return convertToCartResponse(cart);
+        verifyTotals(cart);
+        return cart;
     }
 
-    // Clear entire cart
-    public CartResponse clearCart(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Optional<Cart> cartOpt = cartRepository.findByUserAndIsActiveTrue(user);
-        if (cartOpt.isEmpty()) {
-            throw new RuntimeException("Cart not found");
-        }
-
-        Cart cart = cartOpt.get();
-        cartItemRepository.deleteByCart(cart);
+    private AddToCartRequest toAddRequest(CartOperationRequest operation) {
+        return AddToCartRequest.builder()
+                .productId(operation.getProductId())
+                .productVariantId(operation.getProductVariantId())
+                .quantity(operation.getQuantity())
+                .selectedOptions(operation.getSelectedOptions())
+                .notes(operation.getNotes())
+                .build();
+    }
 
-        // Reset cart totals
-        cart.setTotalAmount(BigDecimal.ZERO);
-        cart.setTotalItems(0);
-        cart = cartRepository.save(cart);
+    private UpdateCartItemRequest toUpdateRequest(CartOperationRequest operation) {
+        return UpdateCartItemRequest.builder()
+                .quantity(operation.getQuantity())
+                .selectedOptions(operation.getSelectedOptions())
+                .notes(operation.getNotes())
+                .build();
+    }
 
-        return convertToCartResponse(cart);
+    private BigDecimal subtotalOf(CartItem cartItem) {
+        return cartItem.getSubtotal() != null ? cartItem.getSubtotal() : BigDecimal.ZERO;
     }
 
-    // Get cart item count
-    public Integer getCartItemCount(Long userId) {
-        Optional<Cart> cartOpt = cartRepository.findByUserIdAndIsActiveTrue(userId);
-        if (cartOpt.isEmpty()) {
-            return 0;
+    // Consistency check mode (cart.totals.consistency-check=true): compares the incrementally
+    // maintained totals with a full recomputation after every mutation and fails on a mismatch
+    private void verifyTotals(Cart cart) {
+        if (!totalsConsistencyCheck) {
+            return;
+        }
+        cartItemRepository.flush();
+        Integer totalItems = cartItemRepository.getTotalQuantityByCartId(cart.getId());
+        BigDecimal totalAmount = cartItemRepository.getTotalAmountByCartId(cart.getId());
+        if (!cart.getTotalItems().equals(totalItems) || cart.getTotalAmount().compareTo(totalAmount) != 0) {
+            log.error("Cart {} totals drifted: stored {}/{}, recomputed {}/{}",
+                    cart.getId(), cart.getTotalItems(), cart.getTotalAmount(), totalItems, totalAmount);
+            throw new IllegalStateException("Sepet toplamları tutarsız");
         }
-        return cartOpt.get().getTotalItems();
     }
-    
-    // Get cart by user ID (for order creation)
-    public Cart getCartByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return cartRepository.findByUserAndIsActiveTrue(user)
-                .orElseThrow(() -> new RuntimeException("Cart not found for user"));
+    private CartResponse convertToCartResponse(Cart cart) {
+        // Items come with their product and variant in one query instead of lazy loading per item
+        return convertToCartResponse(cart, cartItemRepository.findByCartIdWithProducts(cart.getId()));
     }
 
-    // Helper methods
-    private CartResponse convertToCartResponse(Cart cart) {
-        // Get cart items from repository instead of lazy collection
-        List<CartItem> cartItemsList = cartItemRepository.findByCartId(cart.getId());
-        
+    private CartResponse convertToCartResponse(Cart cart, List<CartItem> cartItemsList) {
         List<CartItemResponse> cartItems = cartItemsList.stream()
                 .map(this::convertToCartItemResponse)
                 .collect(Collectors.toList());
@@ -234,23 +381,29 @@ public class CartService {
                 .totalAmount(cart.getTotalAmount())
                 .totalItems(cart.getTotalItems())
                 .isEmpty(cartItems.isEmpty())
+                .version(cart.getVersion())
                 .cartItems(cartItems)
                 .createdAt(cart.getCreatedAt())
                 .updatedAt(cart.getUpdatedAt())
                 .build();
     }
 
+    private CartResponse emptyCartResponse(Long userId) {
+        return CartResponse.builder()
+                .userId(userId)
+                .totalAmount(BigDecimal.ZERO)
+                .totalItems(0)
+                .isEmpty(true)
+                .version(0L)
+                .cartItems(List.of())
+                .build();
+    }
+
     private CartItemResponse convertToCartItemResponse(CartItem cartItem) {
-        // Extract product image from attributes JSON
-        String productImage = null;
-        Map<String, Object> productAttributes = fromJson(cartItem.getProduct().getAttributesJson());
-        if (productAttributes.containsKey("image")) {
-            productImage = (String) productAttributes.get("image");
-        } else if (productAttributes.containsKey("imageUrl")) {
-            productImage = (String) productAttributes.get("imageUrl");
-        } else if (productAttributes.containsKey("mainImage")) {
-            productImage = (String) productAttributes.get("mainImage");
-        }
+        // Product image comes from the shared parsed-attributes cache (parsed once per product version)
+        Product product = cartItem.getProduct();
+        String productImage = productAttributes.get(product.getId(), product.getUpdatedAt(), product.getAttributesJson())
+                .primaryImage();
         
         return CartItemResponse.builder()
                 .id(cartItem.getId())
@@ -0,0 +1,70 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.catalog.CategoryTree;
+import com.deliverapp.backend.catalog.CategoryTreeHolder;
+import com.deliverapp.backend.dto.response.CategoryResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Every read is answered from the in-memory category tree; see CategoryTreeHolder for rebuilds
+@Service
+@RequiredArgsConstructor
+public class CategoryService {
+
+    private final CategoryTreeHolder categoryTreeHolder;
+
+    public List<CategoryResponse> getAllCategories() {
+        return convertToResponses(categoryTreeHolder.get().all());
+    }
+
+    public List<CategoryResponse> getCategoriesByService(Long serviceId) {
+        return convertToResponses(categoryTreeHolder.get().byService(serviceId));
+    }
+
+    public List<CategoryResponse> getRootCategoriesByService(Long serviceId) {
+        return convertToResponses(categoryTreeHolder.get().rootsOfService(serviceId));
+    }
+
+    public List<CategoryResponse> getChildCategories(Long parentId) {
+        return convertToResponses(categoryTreeHolder.get().childrenOf(parentId));
+    }
+
+    public Optional<CategoryResponse> getCategoryById(Long id) {
+        return categoryTreeHolder.get().byId(id)
+                .map(this::convertToResponse);
+    }
+
+    public Optional<CategoryResponse> getCategoryByKey(String key) {
+        return categoryTreeHolder.get().byKey(key)
+                .map(this::convertToResponse);
+    }
+
+    private List<CategoryResponse> convertToResponses(List<CategoryTree.Node> nodes) {
+        return nodes.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    // Responses are mutable DTOs, so each request gets its own copy of the shared node
+    private CategoryResponse convertToResponse(CategoryTree.Node node) {
+        return CategoryResponse.builder()
+                .id(node.id())
+                .name(node.name())
+                .description(node.description())
+                .serviceId(node.serviceId())
+                .serviceName(node.serviceName())
+                .parentId(node.parentId())
+                .key(node.key())
+                .icon(node.icon())
+                .sortOrder(node.sortOrder())
+                .isActive(node.isActive())
+                .hasChildren(node.hasChildren())
+                .createdAt(node.createdAt())
+                .updatedAt(node.updatedAt())
+                .build();
+    }
+}
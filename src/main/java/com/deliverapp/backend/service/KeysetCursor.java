@@ -0,0 +1,44 @@
+package com.deliverapp.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque cursor for keyset pagination: the sort key of the last row of a page, Base64 encoded.
+ * Clients only pass it back; an empty cursor means the first page.
+ */
+final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private KeysetCursor() {
+    }
+
+    static String encode(Object... keyParts) {
+        String raw = Arrays.stream(keyParts).map(String::valueOf).collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes {@code cursor} into its key parts and hands them to {@code parser}. Returns
+     * {@code null} for an empty cursor; anything malformed becomes an IllegalArgumentException (400).
+     */
+    static <T> T decode(String cursor, int keyPartCount, Function<String[], T> parser) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] keyParts = raw.split("\\" + SEPARATOR, -1);
+            if (keyParts.length != keyPartCount) {
+                throw new IllegalArgumentException("Geçersiz sayfa imleci");
+            }
+            return parser.apply(keyParts);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Geçersiz sayfa imleci", e);
+        }
+    }
+}
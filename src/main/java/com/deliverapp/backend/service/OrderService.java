@@ -2,6 +2,7 @@ package com.deliverapp.backend.service;
 
 import com.deliverapp.backend.dto.request.CreateOrderRequest;
 import com.deliverapp.backend.dto.request.UpdateOrderStatusRequest;
+import com.deliverapp.backend.dto.response.CursorPage;
 import com.deliverapp.backend.dto.response.OrderResponse;
 import com.deliverapp.backend.dto.response.OrderItemResponse;
 import com.deliverapp.backend.exception.ResourceNotFoundException;
@@ -9,6 +10,7 @@ import com.deliverapp.backend.model.*;
 import com.deliverapp.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -30,18 +32,19 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartService cartService;
+    private final CartEngine cartEngine;
     private final UserRepository userRepository;
     
     @Transactional
-    public OrderResponse createOrderFromCart(CreateOrderRequest request, String userEmail) {
-        log.info("Creating order from cart for user: {}", userEmail);
+    public OrderResponse createOrderFromCart(CreateOrderRequest request, Long userId) {
+        log.info("Creating order from cart for user: {}", userId);
         
-        // Kullanıcıyı getir
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Kullanıcı bulunamadı"));
+        // Kullanıcı kimliği doğrulanmış istekten gelir; siparişe yalnızca referansı bağlanır
+        User user = userRepository.getReferenceById(userId);
         
-        // Kullanıcının sepetini getir
-        Cart cart = cartService.getCartByUserId(user.getId());
+        // Kullanıcının sepetini getir (write-behind modunda önce bellekteki sepet yazılır)
+        cartEngine.flush(userId);
+        Cart cart = cartService.getCartByUserId(userId);
         
         if (cart.getCartItems() == null || cart.getCartItems().isEmpty()) {
             throw new IllegalStateException("Sepet boş, sipariş oluşturulamaz");
@@ -79,7 +82,7 @@ public class OrderService {
         orderItemRepository.saveAll(orderItems);
         savedOrder.setOrderItems(orderItems);
         
-        log.info("Order created successfully with ID: {} for user: {}", savedOrder.getId(), userEmail);
+        log.info("Order created successfully with ID: {} for user: {}", savedOrder.getId(), userId);
         
         // Sipariş başarıyla oluşturulduktan sonra sepeti temizle
         // Cart clearing hatasının transaction'ı etkilememesi için ayrı method'da yapıyoruz
@@ -103,33 +106,52 @@ public class OrderService {
     }
     
     @Transactional(readOnly = true)
-    public Page<OrderResponse> getUserOrders(String userEmail, int page, int size) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Kullanıcı bulunamadı"));
-        
+    public Page<OrderResponse> getUserOrders(Long userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(user.getId(), pageable);
+        Page<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
         
         return orders.map(this::mapToOrderResponse);
     }
     
     @Transactional(readOnly = true)
-    public OrderResponse getOrderById(Long orderId, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Kullanıcı bulunamadı"));
+    public CursorPage<OrderResponse> getUserOrdersBefore(Long userId, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Sayfa boyutu en az 1 olmalıdır");
+        }
         
-        Order order = orderRepository.findByIdAndUserId(orderId, user.getId())
+        // En yeni siparişten geriye: imleç son satırın (createdAt, id) anahtarını taşır
+        OrderKey before = KeysetCursor.decode(cursor, 2,
+                parts -> new OrderKey(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1])));
+        Limit limit = Limit.of(size + 1);
+        List<Order> rows = before == null
+                ? orderRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, limit)
+                : orderRepository.findByUserIdBefore(userId, before.createdAt(), before.id(), limit);
+        
+        boolean hasNext = rows.size() > size;
+        List<Order> page = hasNext ? rows.subList(0, size) : rows;
+        Order last = hasNext ? page.get(page.size() - 1) : null;
+        
+        return CursorPage.<OrderResponse>builder()
+                .items(page.stream().map(this::mapToOrderResponse).collect(Collectors.toList()))
+                .nextCursor(last != null ? KeysetCursor.encode(last.getCreatedAt(), last.getId()) : null)
+                .hasNext(hasNext)
+                .build();
+    }
+    
+    private record OrderKey(LocalDateTime createdAt, Long id) {
+    }
+    
+    @Transactional(readOnly = true)
+    public OrderResponse getOrderById(Long orderId, Long userId) {
+        Order order = orderRepository.findByIdAndUserId(orderId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Sipariş bulunamadı"));
         
         return mapToOrderResponse(order);
     }
     
     @Transactional(readOnly = true)
-    public List<OrderResponse> getActiveOrders(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Kullanıcı bulunamadı"));
-        
-        List<Order> activeOrders = orderRepository.findActiveOrdersByUserId(user.getId());
+    public List<OrderResponse> getActiveOrders(Long userId) {
+        List<Order> activeOrders = orderRepository.findActiveOrdersByUserId(userId);
         
         return activeOrders.stream()
                 .map(this::mapToOrderResponse)
@@ -137,12 +159,9 @@ public class OrderService {
     }
     
     @Transactional
-    public OrderResponse updateOrderStatus(Long orderId, UpdateOrderStatusRequest request, String userEmail) {
+    public OrderResponse updateOrderStatus(Long orderId, UpdateOrderStatusRequest request, Long userId) {
         // Bu method admin kullanıcılar için de genişletilebilir
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Kullanıcı bulunamadı"));
-        
-        Order order = orderRepository.findByIdAndUserId(orderId, user.getId())
+        Order order = orderRepository.findByIdAndUserId(orderId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Sipariş bulunamadı"));
         
         // Status güncellemelerini sadece belirli durumlar arasında izin ver
@@ -159,7 +178,7 @@ public class OrderService {
         
         order = orderRepository.save(order);
         
-        log.info("Order {} status updated to {} by user {}", orderId, newStatus, userEmail);
+        log.info("Order {} status updated to {} by user {}", orderId, newStatus, userId);
         
         return mapToOrderResponse(order);
     }
@@ -240,7 +259,7 @@ public class OrderService {
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     private void clearCartAfterOrder(Long userId) {
         try {
-            cartService.clearCart(userId);
+            cartEngine.clearCart(userId);
             log.info("Cart cleared successfully after order creation for user: {}", userId);
         } catch (Exception e) {
             log.error("Failed to clear cart after order creation for user: {}. Error: {}", userId, e.getMessage());
@@ -249,18 +268,14 @@ public class OrderService {
     }
 
     @Transactional(readOnly = true)
-    public OrderResponse getOrderByNumber(String orderNumber, String userEmail) {
-        log.info("Getting order by number: {} for user: {}", orderNumber, userEmail);
-        
-        // Kullanıcıyı getir
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Kullanıcı bulunamadı"));
+    public OrderResponse getOrderByNumber(String orderNumber, Long userId) {
+        log.info("Getting order by number: {} for user: {}", orderNumber, userId);
         
         // Order number ve user ID ile siparişi bul (orderItems ile birlikte)
-        Order order = orderRepository.findByOrderNumberAndUserIdWithItems(orderNumber, user.getId())
+        Order order = orderRepository.findByOrderNumberAndUserIdWithItems(orderNumber, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Sipariş bulunamadı: " + orderNumber));
         
-        log.info("Order found with number: {} for user: {}", orderNumber, userEmail);
+        log.info("Order found with number: {} for user: {}", orderNumber, userId);
         
         return mapToOrderResponse(order);
     }
@@ -0,0 +1,427 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.catalog.CatalogCacheConfig;
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.catalog.ProductSearchIndex;
+import com.deliverapp.backend.catalog.ProductSuggestIndex;
+import com.deliverapp.backend.dto.response.*;
+import com.deliverapp.backend.model.*;
+import com.deliverapp.backend.repository.*;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProductService {
+
+    private final ProductRepository productRepository;
+    private final ProductPricingRepository productPricingRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final OptionGroupRepository optionGroupRepository;
+    private final OptionValueRepository optionValueRepository;
+    private final ProductFlagRepository productFlagRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductAttributes productAttributes;
+    private final ObjectMapper objectMapper;
+
+    @Cacheable(cacheNames = CatalogCacheConfig.PRODUCT_LISTS, keyGenerator = CatalogCacheConfig.KEY_GENERATOR)
+    public List<ProductResponse> getProductsByCategory(Long categoryId, int page, int size) {
+        Slice<ProductListRow> products = productRepository.findListRowsByCategory(categoryId, pageRequest(page, size));
+        return convertToSimpleResponses(products.getContent());
+    }
+
+    @Cacheable(cacheNames = CatalogCacheConfig.PRODUCT_LISTS, keyGenerator = CatalogCacheConfig.KEY_GENERATOR)
+    public List<ProductResponse> getProductsByService(Long serviceId, int page, int size) {
+        Slice<ProductListRow> products = productRepository.findListRowsByService(serviceId, pageRequest(page, size));
+        return convertToSimpleResponses(products.getContent());
+    }
+
+    @Cacheable(cacheNames = CatalogCacheConfig.PRODUCT_DETAILS, keyGenerator = CatalogCacheConfig.KEY_GENERATOR, unless = "#result == null")
+    public Optional<ProductResponse> getProductById(Long id) {
+        return productRepository.findByIdAndIsActiveTrue(id)
+                .map(this::convertToDetailedResponse);
+    }
+
+    @Cacheable(cacheNames = CatalogCacheConfig.PRODUCT_LISTS, keyGenerator = CatalogCacheConfig.KEY_GENERATOR)
+    public List<ProductResponse> searchProducts(String query, Long serviceId, Long categoryId, int page, int size) {
+        boolean hasQuery = query != null && !query.trim().isEmpty();
+        if (hasQuery) {
+            return convertToSimpleResponses(findRankedPage(query, serviceId, categoryId, page, size));
+        }
+
+        // Without a query this is a plain filtered listing
+        Pageable pageable = pageRequest(page, size);
+        Slice<ProductListRow> products;
+        if (serviceId != null && categoryId != null) {
+            products = productRepository.findListRowsByServiceAndCategory(serviceId, categoryId, pageable);
+        } else if (serviceId != null) {
+            products = productRepository.findListRowsByService(serviceId, pageable);
+        } else if (categoryId != null) {
+            products = productRepository.findListRowsByCategory(categoryId, pageable);
+        } else {
+            products = productRepository.findListRows(pageable);
+        }
+        return convertToSimpleResponses(products.getContent());
+    }
+
+    // Ranking comes from the search index; only the requested page is loaded from the database.
+    // pageRequest rejects a negative page or a size below one, as on the unranked listings
+    private List<ProductListRow> findRankedPage(String query, Long serviceId, Long categoryId, int page, int size) {
+        Pageable pageable = pageRequest(page, size);
+        List<Long> rankedIds = productSearchIndex.search(query, serviceId, categoryId);
+        return findProductsInOrder(rankedIds, (int) Math.min(pageable.getOffset(), rankedIds.size()),
+                pageable.getPageSize());
+    }
+
+    private List<ProductListRow> findProductsInOrder(List<Long> rankedIds, int from, int size) {
+        int start = Math.min(from, rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(start, (int) Math.min((long) start + size, rankedIds.size()));
+        if (pageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, ProductListRow> productsById = productRepository.findListRowsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(ProductListRow::id, product -> product));
+        return pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Cacheable(cacheNames = CatalogCacheConfig.PRODUCT_LISTS, keyGenerator = CatalogCacheConfig.KEY_GENERATOR)
+    public CursorPage<ProductResponse> getProductsByCategoryAfter(Long categoryId, String cursor, int size) {
+        ProductKey after = ProductKey.decode(cursor);
+        return toCursorPage(productRepository.findListRowsByCategoryAfter(
+                categoryId, after.sortOrder(), after.id(), fetchLimit(size)), size);
+    }
+
+    @Cacheable(cacheNames = CatalogCacheConfig.PRODUCT_LISTS, keyGenerator = CatalogCacheConfig.KEY_GENERATOR)
+    public CursorPage<ProductResponse> getProductsByServiceAfter(Long serviceId, String cursor, int size) {
+        ProductKey after = ProductKey.decode(cursor);
+        return toCursorPage(productRepository.findListRowsByServiceAfter(
+                serviceId, after.sortOrder(), after.id(), fetchLimit(size)), size);
+    }
+
+    @Cacheable(cacheNames = CatalogCacheConfig.PRODUCT_LISTS, keyGenerator = CatalogCacheConfig.KEY_GENERATOR)
+    public CursorPage<ProductResponse> searchProductsAfter(String query, Long serviceId, Long categoryId, String cursor, int size) {
+        boolean hasQuery = query != null && !query.trim().isEmpty();
+        if (hasQuery) {
+            return searchRankedAfter(query, serviceId, categoryId, cursor, size);
+        }
+
+        ProductKey after = ProductKey.decode(cursor);
+        List<ProductListRow> rows;
+        if (serviceId != null && categoryId != null) {
+            rows = productRepository.findListRowsByServiceAndCategoryAfter(
+                    serviceId, categoryId, after.sortOrder(), after.id(), fetchLimit(size));
+        } else if (serviceId != null) {
+            rows = productRepository.findListRowsByServiceAfter(serviceId, after.sortOrder(), after.id(), fetchLimit(size));
+        } else if (categoryId != null) {
+            rows = productRepository.findListRowsByCategoryAfter(categoryId, after.sortOrder(), after.id(), fetchLimit(size));
+        } else {
+            rows = productRepository.findListRowsAfter(after.sortOrder(), after.id(), fetchLimit(size));
+        }
+        return toCursorPage(rows, size);
+    }
+
+    // Ranked results have no (sortOrder, id) order to resume from, so the cursor is the position
+    // in the index's result list; skipping happens in memory, not with an SQL OFFSET
+    private CursorPage<ProductResponse> searchRankedAfter(String query, Long serviceId, Long categoryId, String cursor, int size) {
+        checkPageSize(size);
+        Integer position = KeysetCursor.decode(cursor, 1, parts -> {
+            int value = Integer.parseInt(parts[0]);
+            if (value < 0) {
+                throw new IllegalArgumentException("Geçersiz sayfa imleci");
+            }
+            return value;
+        });
+        int from = position != null ? position : 0;
+        List<Long> rankedIds = productSearchIndex.search(query, serviceId, categoryId);
+        boolean hasNext = rankedIds.size() > from + size;
+        return CursorPage.<ProductResponse>builder()
+                .items(convertToSimpleResponses(findProductsInOrder(rankedIds, from, size)))
+                .nextCursor(hasNext ? KeysetCursor.encode(from + size) : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    // One extra row tells whether there is a next page without counting
+    private CursorPage<ProductResponse> toCursorPage(List<ProductListRow> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        List<ProductListRow> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ProductListRow last = page.get(page.size() - 1);
+            // Same NULL-as-0 key the keyset queries compare on
+            nextCursor = KeysetCursor.encode(last.sortOrder() != null ? last.sortOrder() : 0, last.id());
+        }
+        return CursorPage.<ProductResponse>builder()
+                .items(convertToSimpleResponses(page))
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    private Limit fetchLimit(int size) {
+        checkPageSize(size);
+        return Limit.of(size + 1);
+    }
+
+    private void checkPageSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Sayfa boyutu en az 1 olmalıdır");
+        }
+    }
+
+    private record ProductKey(Integer sortOrder, Long id) {
+        // Sorts before every product, so an empty cursor starts from the first row
+        static final ProductKey FIRST = new ProductKey(Integer.MIN_VALUE, 0L);
+
+        static ProductKey decode(String cursor) {
+            ProductKey key = KeysetCursor.decode(cursor, 2,
+                    parts -> new ProductKey(Integer.valueOf(parts[0]), Long.valueOf(parts[1])));
+            return key != null ? key : FIRST;
+        }
+    }
+
+    // Answered from memory only, so no transaction (and no connection) is opened
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductSuggestionResponse> suggestProducts(String prefix, Long serviceId, int limit) {
+        return productSuggestIndex.suggest(prefix, serviceId, limit).stream()
+                .map(suggestion -> ProductSuggestionResponse.builder()
+                        .id(suggestion.id())
+                        .name(suggestion.name())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private Pageable pageRequest(int page, int size) {
+        return PageRequest.of(page, size, Sort.by("sortOrder").ascending());
+    }
+
+    // Builds list view responses for a whole page at once from ProductListRow projections; pricing
+    // is loaded with a single IN query for all products
+    private List<ProductResponse> convertToSimpleResponses(List<ProductListRow> rows) {
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> productIds = rows.stream()
+                .map(ProductListRow::id)
+                .collect(Collectors.toList());
+        Map<Long, List<ProductPricingResponse>> pricingByProductId = productPricingRepository
+                .findByProductIdInAndIsActiveTrue(productIds).stream()
+                .collect(Collectors.groupingBy(pricing -> pricing.getProduct().getId(),
+                        Collectors.mapping(this::convertToPricingResponse, Collectors.toList())));
+
+        return rows.stream()
+                .map(row -> convertToListResponse(row,
+                        pricingByProductId.getOrDefault(row.id(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    // List card response: no description, and only the image attributes the card shows (see ProductAttributes)
+    private ProductResponse convertToListResponse(ProductListRow row, List<ProductPricingResponse> pricing) {
+        return ProductResponse.builder()
+                .id(row.id())
+                .name(row.name())
+                .shortDescription(row.shortDescription())
+                .serviceId(row.serviceId())
+                .serviceName(row.serviceName())
+                .categoryId(row.categoryId())
+                .categoryName(row.categoryName())
+                .key(row.key())
+                .sku(row.sku())
+                .productType(row.productType().toString())
+                .attributes(productAttributes.get(row.id(), row.updatedAt(), row.attributesJson()).cardAttributes())
+                .isActive(row.isActive())
+                .sortOrder(row.sortOrder())
+                .createdAt(row.createdAt())
+                .updatedAt(row.updatedAt())
+                .pricing(pricing)
+                .variants(Collections.emptyList())
+                .optionGroups(Collections.emptyList())
+                .flags(Collections.emptyList())
+                .build();
+    }
+
+    // Product base fields plus pricing; the detail view adds the remaining relationships
+    private ProductResponse convertToSimpleResponse(Product product, List<ProductPricingResponse> pricing) {
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .shortDescription(product.getShortDescription())
+                .serviceId(product.getService().getId())
+                .serviceName(product.getService().getName())
+                .categoryId(product.getCategory().getId())
+                .categoryName(product.getCategory().getName())
+                .key(product.getKey())
+                .sku(product.getSku())
+                .productType(product.getProductType().toString())
+                .attributes(productAttributes.get(product.getId(), product.getUpdatedAt(), product.getAttributesJson()).attributes())
+                .isActive(product.getIsActive())
+                .sortOrder(product.getSortOrder())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .pricing(pricing)
+                .variants(Collections.emptyList())
+                .optionGroups(Collections.emptyList())
+                .flags(Collections.emptyList())
+                .build();
+    }
+
+    // Detailed response for single product view (with all relationships). The whole aggregate is
+    // loaded with a fixed number of queries: one per child table, option values for every group at once
+    private ProductResponse convertToDetailedResponse(Product product) {
+        List<ProductPricingResponse> pricing = productPricingRepository.findByProductIdAndIsActiveTrue(product.getId()).stream()
+                .map(this::convertToPricingResponse)
+                .collect(Collectors.toList());
+        ProductResponse response = convertToSimpleResponse(product, pricing);
+
+        // Add variants
+        List<ProductVariant> variantList = productVariantRepository.findByProductIdAndIsActiveTrueOrderBySortOrderAsc(product.getId());
+        response.setVariants(variantList.stream()
+                .map(this::convertToVariantResponse)
+                .collect(Collectors.toList()));
+
+        // Add option groups with values
+        List<OptionGroup> optionGroupList = optionGroupRepository.findByProductIdAndIsActiveTrueOrderBySortOrderAsc(product.getId());
+        Map<Long, List<OptionValue>> optionValuesByGroupId = findOptionValuesByGroupId(optionGroupList);
+        response.setOptionGroups(optionGroupList.stream()
+                .map(optionGroup -> convertToOptionGroupResponse(optionGroup,
+                        optionValuesByGroupId.getOrDefault(optionGroup.getId(), Collections.emptyList())))
+                .collect(Collectors.toList()));
+
+        // Add flags
+        List<ProductFlag> flagList = productFlagRepository.findByProductIdAndIsActiveTrue(product.getId());
+        response.setFlags(flagList.stream()
+                .map(this::convertToFlagResponse)
+                .collect(Collectors.toList()));
+
+        return response;
+    }
+
+    private Map<Long, List<OptionValue>> findOptionValuesByGroupId(List<OptionGroup> optionGroups) {
+        if (optionGroups.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> optionGroupIds = optionGroups.stream()
+                .map(OptionGroup::getId)
+                .collect(Collectors.toList());
+        return optionValueRepository.findByOptionGroupIdInAndIsActiveTrueOrderBySortOrderAsc(optionGroupIds).stream()
+                .collect(Collectors.groupingBy(optionValue -> optionValue.getOptionGroup().getId()));
+    }
+
+    private ProductPricingResponse convertToPricingResponse(ProductPricing pricing) {
+        return ProductPricingResponse.builder()
+                .id(pricing.getId())
+                .productId(pricing.getProduct().getId())
+                .pricingType(pricing.getPricingType().toString())
+                .basePrice(pricing.getBasePrice())
+                .minPrice(pricing.getMinPrice())
+                .maxPrice(pricing.getMaxPrice())
+                .currency(pricing.getCurrency())
+                .pricingRules(fromJson(pricing.getPricingRulesJson()))
+                .isActive(pricing.getIsActive())
+                .effectiveFrom(pricing.getEffectiveFrom())
+                .effectiveUntil(pricing.getEffectiveUntil())
+                .createdAt(pricing.getCreatedAt())
+                .updatedAt(pricing.getUpdatedAt())
+                .build();
+    }
+
+    private ProductVariantResponse convertToVariantResponse(ProductVariant variant) {
+        return ProductVariantResponse.builder()
+                .id(variant.getId())
+                .productId(variant.getProduct().getId())
+                .variantName(variant.getVariantName())
+                .sku(variant.getSku())
+                .attributes(fromJson(variant.getAttributesJson()))
+                .priceModifier(variant.getPriceModifier())
+                .isActive(variant.getIsActive())
+                .sortOrder(variant.getSortOrder())
+                .createdAt(variant.getCreatedAt())
+                .updatedAt(variant.getUpdatedAt())
+                .build();
+    }
+
+    private OptionGroupResponse convertToOptionGroupResponse(OptionGroup optionGroup, List<OptionValue> optionValues) {
+        return OptionGroupResponse.builder()
+                .id(optionGroup.getId())
+                .productId(optionGroup.getProduct().getId())
+                .name(optionGroup.getName())
+                .description(optionGroup.getDescription())
+                .optionType(optionGroup.getOptionType().toString())
+                .isRequired(optionGroup.getIsRequired())
+                .isActive(optionGroup.getIsActive())
+                .sortOrder(optionGroup.getSortOrder())
+                .minSelections(optionGroup.getMinSelections())
+                .maxSelections(optionGroup.getMaxSelections())
+                .options(optionValues.stream()
+                        .map(this::convertToOptionValueResponse)
+                        .collect(Collectors.toList()))
+                .createdAt(optionGroup.getCreatedAt())
+                .updatedAt(optionGroup.getUpdatedAt())
+                .build();
+    }
+
+    private OptionValueResponse convertToOptionValueResponse(OptionValue optionValue) {
+        return OptionValueResponse.builder()
+                .id(optionValue.getId())
+                .optionGroupId(optionValue.getOptionGroup().getId())
+                .name(optionValue.getName())
+                .valueText(optionValue.getValueText())
+                .priceModifier(optionValue.getPriceModifier())
+                .isActive(optionValue.getIsActive())
+                .sortOrder(optionValue.getSortOrder())
+                .createdAt(optionValue.getCreatedAt())
+                .updatedAt(optionValue.getUpdatedAt())
+                .build();
+    }
+
+    private ProductFlagResponse convertToFlagResponse(ProductFlag flag) {
+        return ProductFlagResponse.builder()
+                .id(flag.getId())
+                .productId(flag.getProduct().getId())
+                .flagKey(flag.getFlagKey())
+                .flagValue(flag.getFlagValue())
+                .flagType(flag.getFlagType().toString())
+                .description(flag.getDescription())
+                .isActive(flag.getIsActive())
+                .createdAt(flag.getCreatedAt())
+                .updatedAt(flag.getUpdatedAt())
+                .build();
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return new java.util.HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            // Log the error and return an empty map or handle it as needed
+            return new java.util.HashMap<>();
+        }
+    }
+}
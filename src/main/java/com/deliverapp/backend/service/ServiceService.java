@@ -1,19 +1,25 @@
 package com.deliverapp.backend.service;
 
+import com.deliverapp.backend.catalog.CatalogCacheConfig;
 import com.deliverapp.backend.repository.ServiceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import java.util.List;
 import java.util.Optional;
 
+// Catalog version bump and cache invalidation for create/update/delete happen in
+// CatalogCacheInvalidator, triggered by the entity listener on Service
 @org.springframework.stereotype.Service
 public class ServiceService {
     @Autowired
     private ServiceRepository serviceRepository;
 
+    @Cacheable(cacheNames = CatalogCacheConfig.SERVICES, keyGenerator = CatalogCacheConfig.KEY_GENERATOR)
     public List<com.deliverapp.backend.model.Service> getAllServices() {
         return serviceRepository.findAll();
     }
 
+    @Cacheable(cacheNames = CatalogCacheConfig.SERVICES, keyGenerator = CatalogCacheConfig.KEY_GENERATOR, unless = "#result == null")
     public Optional<com.deliverapp.backend.model.Service> getServiceById(Long id) {
         return serviceRepository.findById(id);
     }
@@ -0,0 +1,328 @@
+package com.deliverapp.backend.cart;
+
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.dto.request.AddToCartRequest;
+import com.deliverapp.backend.dto.request.CartBatchRequest;
+import com.deliverapp.backend.dto.request.CartOperationRequest;
+import com.deliverapp.backend.dto.request.UpdateCartItemRequest;
+import com.deliverapp.backend.dto.response.CartDeltaResponse;
+import com.deliverapp.backend.dto.response.CartResponse;
+import com.deliverapp.backend.model.*;
+import com.deliverapp.backend.repository.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// The engine commits in its own transactions, so this test runs without the usual rollback and cleans up itself
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ProductAttributes.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WriteBehindCartEngineTest {
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductAttributes productAttributes;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    @TempDir
+    private Path logDirectory;
+
+    private Long userId;
+    private Product pizza;
+    private ProductVariant largePizza;
+
+    @BeforeEach
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = new User();
+            user.setUsername("writer");
+            user.setEmail("writer@deliver.app");
+            user.setPassword("hash");
+            entityManager.persist(user);
+            userId = user.getId();
+
+            com.deliverapp.backend.model.Service service = new com.deliverapp.backend.model.Service();
+            service.setKey("food");
+            service.setName("DeliVerFood");
+            service.setCreatedAt(LocalDateTime.now());
+            service.setUpdatedAt(LocalDateTime.now());
+            entityManager.persist(service);
+
+            Category category = new Category();
+            category.setService(service);
+            category.setName("Pizza");
+            category.setSlug("pizza");
+            entityManager.persist(category);
+
+            pizza = new Product();
+            pizza.setService(service);
+            pizza.setCategory(category);
+            pizza.setName("Margarita");
+            pizza.setSlug("margarita");
+            pizza.setKey("margarita");
+            pizza.setProductType(Product.ProductType.PHYSICAL);
+            entityManager.persist(pizza);
+
+            ProductPricing pricing = new ProductPricing();
+            pricing.setProduct(pizza);
+            pricing.setBasePrice(new BigDecimal("150.00"));
+            entityManager.persist(pricing);
+
+            largePizza = new ProductVariant();
+            largePizza.setProduct(pizza);
+            largePizza.setVariantName("Büyük");
+            largePizza.setPriceModifier(new BigDecimal("40.00"));
+            entityManager.persist(largePizza);
+        });
+    }
+
+    @Test
+    void testMutationsAreCoalescedIntoOneFlush() {
+        WriteBehindCartEngine engine = engine();
+        CartResponse added = engine.addToCart(userId, add(pizza, null, 1));
+        Long lineId = added.getCartItems().get(0).getId();
+        for (int quantity = 2; quantity <= 5; quantity++) {
+            engine.updateCartItem(userId, lineId, quantity(quantity));
+        }
+        CartResponse cart = engine.addToCart(userId, add(pizza, largePizza, 2));
+
+        assertThat(cart.getTotalItems()).isEqualTo(7);
+        assertThat(cart.getTotalAmount()).isEqualByComparingTo("1130.00");
+        assertThat(cartRepository.count()).isZero();
+
+        engine.flushAll();
+
+        List<CartItem> rows = cartItemRepository.findAll();
+        assertThat(rows).extracting(CartItem::getQuantity).containsExactlyInAnyOrder(5, 2);
+        assertThat(cartRepository.findByUserIdAndIsActiveTrue(userId)).get()
+                .satisfies(stored -> {
+                    assertThat(stored.getTotalItems()).isEqualTo(7);
+                    assertThat(stored.getTotalAmount()).isEqualByComparingTo("1130.00");
+                });
+
+        // The id handed out before the flush keeps working, and the response now carries the real one
+        CartResponse updated = engine.updateCartItem(userId, lineId, quantity(1));
+        assertThat(updated.getCartItems()).extracting(item -> item.getId()).allMatch(id -> id > 0);
+        engine.removeFromCart(userId, lineId);
+        engine.flush(userId);
+        assertThat(cartItemRepository.findAll()).extracting(CartItem::getQuantity).containsExactly(2);
+    }
+
+    @Test
+    void testReplaysLogAfterCrash() throws IOException {
+        WriteBehindCartEngine crashed = engine();
+        CartResponse added = crashed.addToCart(userId, add(pizza, null, 3));
+        crashed.addToCart(userId, add(pizza, largePizza, 1));
+        crashed.removeFromCart(userId, added.getCartItems().get(0).getId());
+        assertThat(cartRepository.count()).isZero();
+
+        // No stop(): the second engine only has the log to go on
+        WriteBehindCartEngine restarted = engine();
+
+        assertThat(cartItemRepository.findAll()).singleElement()
+                .satisfies(row -> assertThat(row.getQuantity()).isEqualTo(1));
+        assertThat(restarted.getCart(userId).getTotalAmount()).isEqualByComparingTo("190.00");
+        assertThat(logEntries()).isZero();
+    }
+
+    @Test
+    void testReplayOfAlreadyFlushedLogIsIdempotent() throws IOException {
+        WriteBehindCartEngine engine = engine();
+        engine.addToCart(userId, add(pizza, null, 2));
+        engine.addToCart(userId, add(pizza, null, 2));
+        Path copy = Files.createTempDirectory("cart-log-copy");
+        copyLog(logDirectory, copy);
+
+        // Crash after the flush committed but before its segments were deleted
+        engine.flushAll();
+        copyLog(copy, logDirectory);
+        engine();
+
+        assertThat(cartItemRepository.findAll()).singleElement()
+                .satisfies(row -> assertThat(row.getQuantity()).isEqualTo(4));
+        assertThat(cartRepository.findByUserIdAndIsActiveTrue(userId)).get()
+                .satisfies(stored -> assertThat(stored.getTotalItems()).isEqualTo(4));
+    }
+
+    @Test
+    void testBatchIsAllOrNothing() throws IOException {
+        WriteBehindCartEngine engine = engine();
+        Long lineId = engine.addToCart(userId, add(pizza, null, 2)).getCartItems().get(0).getId();
+
+        CartResponse cart = engine.applyBatch(userId, batch(
+                CartOperationRequest.builder().type(CartOperationRequest.Type.ADD)
+                        .productId(pizza.getId()).productVariantId(largePizza.getId()).quantity(1).build(),
+                CartOperationRequest.builder().type(CartOperationRequest.Type.UPDATE).cartItemId(lineId).quantity(4).build()));
+        assertThat(cart.getTotalItems()).isEqualTo(5);
+        assertThat(cart.getTotalAmount()).isEqualByComparingTo("790.00");
+        assertThat(logEntries()).isEqualTo(2);
+
+        // The unknown line fails the batch after the first step already ran in memory
+        assertThatThrownBy(() -> engine.applyBatch(userId, batch(
+                CartOperationRequest.builder().type(CartOperationRequest.Type.REMOVE).cartItemId(lineId).build(),
+                CartOperationRequest.builder().type(CartOperationRequest.Type.REMOVE).cartItemId(lineId).build())))
+                .hasMessage("Cart item not found");
+        assertThat(engine.getCart(userId).getTotalItems()).isEqualTo(5);
+        assertThat(engine.getCart(userId).getCartItems()).hasSize(2);
+        assertThat(logEntries()).isEqualTo(2);
+    }
+
+    @Test
+    void testDeltaResponseAndVersionSurviveFlush() {
+        WriteBehindCartEngine engine = engine();
+        CartResponse cart = engine.addToCart(userId, add(pizza, null, 1));
+        engine.addToCart(userId, add(pizza, largePizza, 1));
+        Long lineId = cart.getCartItems().get(0).getId();
+
+        CartDeltaResponse delta = engine.applyBatchDelta(userId, batch(
+                CartOperationRequest.builder().type(CartOperationRequest.Type.UPDATE).cartItemId(lineId).quantity(3).build()));
+        assertThat(delta.getChangedItems()).singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(3));
+        assertThat(delta.getRemovedItemIds()).isEmpty();
+        assertThat(delta.getVersion()).isEqualTo(3);
+        assertThat(delta.getTotalAmount()).isEqualByComparingTo("640.00");
+
+        engine.flushAll();
+        assertThat(cartRepository.findByUserIdAndIsActiveTrue(userId)).get()
+                .satisfies(stored -> assertThat(stored.getVersion()).isEqualTo(3));
+        assertThat(engine().getCart(userId).getVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void testFailedWriteThroughLeavesNoTrace() {
+        // The log rejects every append and the second cart write fails
+        CartLog brokenLog = new CartLog(logDirectory, objectMapper, false) {
+            @Override
+            synchronized void append(List<Entry> entries) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        };
+        CartRepository failingCarts = mock(CartRepository.class, delegatesTo(cartRepository));
+        doAnswer(delegatesTo(cartRepository))
+                .doThrow(new DataAccessResourceFailureException("database down"))
+                .doAnswer(delegatesTo(cartRepository))
+                .when(failingCarts).save(any(Cart.class));
+        WriteBehindCartEngine engine = new WriteBehindCartEngine(failingCarts, cartItemRepository, productRepository,
+                productVariantRepository, userRepository, productAttributes, objectMapper, transactionManager, brokenLog,
+                Duration.ofHours(1), Duration.ofMinutes(30), 4);
+        engine.start();
+
+        engine.addToCart(userId, add(pizza, null, 1));
+        assertThatThrownBy(() -> engine.addToCart(userId, add(pizza, null, 1)))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        CartResponse unchanged = engine.getCart(userId);
+        assertThat(unchanged.getTotalItems()).isEqualTo(1);
+        assertThat(unchanged.getVersion()).isEqualTo(1);
+
+        // The retry is applied once, on top of the state before the failed request
+        CartResponse retried = engine.addToCart(userId, add(pizza, null, 1));
+        assertThat(retried.getTotalItems()).isEqualTo(2);
+        assertThat(retried.getVersion()).isEqualTo(2);
+        assertThat(cartRepository.findByUserIdAndIsActiveTrue(userId)).get()
+                .satisfies(stored -> assertThat(stored.getTotalItems()).isEqualTo(2));
+    }
+
+    private WriteBehindCartEngine engine() {
+        WriteBehindCartEngine engine = new WriteBehindCartEngine(cartRepository, cartItemRepository, productRepository,
+                productVariantRepository, userRepository, productAttributes, objectMapper, transactionManager,
+                logDirectory, false, Duration.ofHours(1), Duration.ofMinutes(30), 4);
+        engine.start();
+        return engine;
+    }
+
+    private AddToCartRequest add(Product product, ProductVariant variant, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setProductVariantId(variant != null ? variant.getId() : null);
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    private CartBatchRequest batch(CartOperationRequest... operations) {
+        return CartBatchRequest.builder().operations(List.of(operations)).build();
+    }
+
+    private UpdateCartItemRequest quantity(int quantity) {
+        UpdateCartItemRequest request = new UpdateCartItemRequest();
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    private long logEntries() throws IOException {
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            long lines = 0;
+            for (Path file : files.toList()) {
+                lines += Files.readAllLines(file).size();
+            }
+            return lines;
+        }
+    }
+
+    private void copyLog(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, to.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("cart_items", "carts", "product_pricing", "product_variants", "products",
+                "categories", "services", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+}
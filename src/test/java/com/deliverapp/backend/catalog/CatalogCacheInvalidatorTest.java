@@ -0,0 +1,114 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.CatalogRevision;
+import com.deliverapp.backend.model.Product;
+import com.deliverapp.backend.repository.CatalogRevisionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The catalog version commits its own row, so this test runs without the usual rollback and cleans up itself
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogCacheInvalidatorTest {
+    @Autowired
+    private CatalogRevisionRepository catalogRevisionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CatalogVersion catalogVersion;
+    private ConcurrentMapCacheManager cacheManager;
+    private CatalogCacheInvalidator invalidator;
+    private KeyGenerator keyGenerator;
+
+    @BeforeEach
+    void setUp() {
+        catalogVersion = new CatalogVersion(catalogRevisionRepository, transactionManager, event -> {
+        }, Duration.ofHours(1));
+        catalogVersion.start();
+        cacheManager = new ConcurrentMapCacheManager(CatalogCacheConfig.CACHE_NAMES.toArray(String[]::new));
+        invalidator = new CatalogCacheInvalidator(catalogVersion, cacheManager);
+        keyGenerator = new CatalogCacheConfig().catalogKeyGenerator(catalogVersion);
+    }
+
+    @Test
+    void testChangeBumpsVersionAndClearsCaches() {
+        cacheManager.getCache(CatalogCacheConfig.PRODUCT_DETAILS).put(1L, "product");
+        cacheManager.getCache(CatalogCacheConfig.SERVICES).put(1L, "service");
+
+        long before = catalogVersion.current();
+        invalidator.onCatalogChanged(new CatalogChangedEvent(new Product()));
+
+        assertThat(catalogVersion.current()).isEqualTo(before + 1);
+        assertThat(cacheManager.getCache(CatalogCacheConfig.PRODUCT_DETAILS).get(1L)).isNull();
+        assertThat(cacheManager.getCache(CatalogCacheConfig.SERVICES).get(1L)).isNull();
+    }
+
+    @Test
+    void testKeysChangeWithCatalogVersion() throws Exception {
+        Method method = String.class.getMethod("valueOf", long.class);
+        Object before = keyGenerator.generate(this, method, 42L);
+
+        assertThat(keyGenerator.generate(this, method, 42L)).isEqualTo(before);
+        catalogVersion.bump();
+        assertThat(keyGenerator.generate(this, method, 42L)).isNotEqualTo(before);
+    }
+
+    @Test
+    void testValidatorsChangeOnEveryBump() {
+        String eTag = catalogVersion.eTag();
+        LocalDateTime modifiedAt = storedModifiedAt();
+
+        invalidator.onCatalogChanged(new CatalogChangedEvent(new Product()));
+        invalidator.onCatalogChanged(new CatalogChangedEvent(new Product()));
+
+        assertThat(catalogVersion.eTag()).isNotEqualTo(eTag);
+        // Two changes within the same second still move Last-Modified forward; while that puts it
+        // ahead of the clock it is withheld
+        assertThat(storedModifiedAt()).isAfterOrEqualTo(modifiedAt.plusSeconds(2));
+        assertThat(catalogVersion.lastModified()).satisfiesAnyOf(
+                lastModified -> assertThat(lastModified).isEqualTo(-1),
+                lastModified -> assertThat(lastModified).isLessThanOrEqualTo(System.currentTimeMillis()));
+    }
+
+    @Test
+    void testRemoteChangeClearsCachesWithoutBumping() {
+        cacheManager.getCache(CatalogCacheConfig.PRODUCT_LISTS).put(1L, "page");
+        long before = catalogVersion.current();
+
+        invalidator.onRemoteCatalogChanged(new RemoteCatalogChangedEvent(before + 1));
+
+        assertThat(catalogVersion.current()).isEqualTo(before);
+        assertThat(cacheManager.getCache(CatalogCacheConfig.PRODUCT_LISTS).get(1L)).isNull();
+    }
+
+    private LocalDateTime storedModifiedAt() {
+        return catalogRevisionRepository.findById(CatalogRevision.ID).orElseThrow().getModifiedAt();
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogVersion.stop();
+        jdbcTemplate.update("DELETE FROM catalog_revision");
+    }
+}
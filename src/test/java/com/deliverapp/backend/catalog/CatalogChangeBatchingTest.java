@@ -0,0 +1,121 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Catalog writes have to commit for the after-commit bump to run, so this test runs without the usual
+// rollback and cleans up itself
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CatalogVersion.class, CatalogCacheInvalidator.class, CatalogEntityListener.class, CatalogCacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogChangeBatchingTest {
+    private static final int OPTION_GROUPS = 3;
+    private static final int VALUES_PER_GROUP = 4;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testOneTransactionBumpsTheVersionOnce() {
+        long before = catalogVersion.current();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            com.deliverapp.backend.model.Service service = new com.deliverapp.backend.model.Service();
+            service.setKey("food");
+            service.setName("DeliVerFood");
+            service.setCreatedAt(LocalDateTime.now());
+            service.setUpdatedAt(LocalDateTime.now());
+            entityManager.persist(service);
+
+            Category category = new Category();
+            category.setService(service);
+            category.setName("Pizza");
+            category.setSlug("pizza");
+            entityManager.persist(category);
+
+            Product pizza = new Product();
+            pizza.setService(service);
+            pizza.setCategory(category);
+            pizza.setName("Margarita");
+            pizza.setSlug("margarita");
+            pizza.setKey("margarita");
+            pizza.setProductType(Product.ProductType.PHYSICAL);
+            entityManager.persist(pizza);
+
+            ProductPricing pricing = new ProductPricing();
+            pricing.setProduct(pizza);
+            pricing.setBasePrice(new BigDecimal("12.50"));
+            entityManager.persist(pricing);
+
+            for (int i = 0; i < OPTION_GROUPS; i++) {
+                OptionGroup group = new OptionGroup();
+                group.setProduct(pizza);
+                group.setName("Grup " + i);
+                entityManager.persist(group);
+                for (int j = 0; j < VALUES_PER_GROUP; j++) {
+                    OptionValue value = new OptionValue();
+                    value.setOptionGroup(group);
+                    value.setName("Seçenek " + i + "-" + j);
+                    entityManager.persist(value);
+                }
+            }
+            // Rows are written (and entity callbacks fire) before the commit, not at it
+            entityManager.flush();
+            assertThat(catalogVersion.current()).isEqualTo(before);
+        });
+
+        assertThat(catalogVersion.current()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void testRolledBackChangesDoNotBump() {
+        long before = catalogVersion.current();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            com.deliverapp.backend.model.Service service = new com.deliverapp.backend.model.Service();
+            service.setKey("market");
+            service.setName("DeliVerMarket");
+            service.setCreatedAt(LocalDateTime.now());
+            service.setUpdatedAt(LocalDateTime.now());
+            entityManager.persist(service);
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(catalogVersion.current()).isEqualTo(before);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("option_values", "option_groups", "product_pricing", "products", "categories",
+                "services")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+}
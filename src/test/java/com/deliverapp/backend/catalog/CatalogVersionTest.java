@@ -0,0 +1,150 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.CatalogRevision;
+import com.deliverapp.backend.repository.CatalogRevisionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Several CatalogVersion instances on one database stand in for application instances. The version row is
+// committed, so this test runs without the usual rollback and cleans up itself
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogVersionTest {
+    @Autowired
+    private CatalogRevisionRepository catalogRevisionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<CatalogVersion> started = new ArrayList<>();
+
+    @Test
+    void testSyncAdoptsVersionBumpedOnAnotherInstance() {
+        List<Object> eventsOnA = new ArrayList<>();
+        List<Object> eventsOnB = new ArrayList<>();
+        CatalogVersion a = start(eventsOnA);
+        CatalogVersion b = start(eventsOnB);
+
+        a.bump();
+        assertThat(b.current()).isZero();
+
+        b.sync();
+        assertThat(b.current()).isEqualTo(1);
+        assertThat(b.eTag()).isEqualTo(a.eTag());
+        assertThat(b.lastModified()).isEqualTo(a.lastModified());
+        assertThat(eventsOnB).containsExactly(new RemoteCatalogChangedEvent(1));
+        assertThat(eventsOnA).isEmpty();
+
+        // Nothing new: no second event
+        b.sync();
+        assertThat(eventsOnB).hasSize(1);
+    }
+
+    @Test
+    void testBumpReportsChangesMissedFromOtherInstances() {
+        List<Object> eventsOnB = new ArrayList<>();
+        CatalogVersion a = start(new ArrayList<>());
+        CatalogVersion b = start(eventsOnB);
+
+        a.bump();
+        assertThat(b.bump()).isEqualTo(2);
+        assertThat(eventsOnB).containsExactly(new RemoteCatalogChangedEvent(2));
+
+        // A change made on one instance after another moves Last-Modified forward everywhere
+        a.sync();
+        assertThat(a.current()).isEqualTo(2);
+        assertThat(a.lastModified()).isEqualTo(b.lastModified());
+    }
+
+    @Test
+    void testNewInstanceStartsFromStoredVersion() {
+        CatalogVersion a = start(new ArrayList<>());
+        a.bump();
+        a.bump();
+
+        CatalogVersion restarted = start(new ArrayList<>());
+        assertThat(restarted.current()).isEqualTo(2);
+        assertThat(restarted.eTag()).isEqualTo(a.eTag());
+        assertThat(restarted.lastModified()).isEqualTo(a.lastModified());
+    }
+
+    @Test
+    void testConditionalGetAcrossInstances() {
+        CatalogVersion a = start(new ArrayList<>());
+        CatalogVersion b = start(new ArrayList<>());
+        String eTag = a.eTag();
+
+        // Validators from one instance are honoured by the other
+        assertThat(notModified(b, eTag)).isTrue();
+
+        b.bump();
+        a.sync();
+        assertThat(notModified(a, eTag)).isFalse();
+        assertThat(notModified(b, eTag)).isFalse();
+        assertThat(notModified(a, b.eTag())).isTrue();
+    }
+
+    @Test
+    void testBurstOfChangesKeepsLastModifiedNearTheClock() {
+        CatalogVersion a = start(new ArrayList<>());
+        CatalogVersion b = start(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            (i % 2 == 0 ? a : b).bump();
+        }
+        a.sync();
+
+        long latest = Instant.now().getEpochSecond() + CatalogVersion.MAX_LEAD_SECONDS;
+        assertThat(catalogRevisionRepository.findById(CatalogRevision.ID).orElseThrow().getModifiedAt()
+                .toEpochSecond(ZoneOffset.UTC)).isLessThanOrEqualTo(latest);
+        // A date ahead of the clock is withheld, so conditional GETs fall back to the ETag
+        for (CatalogVersion catalogVersion : List.of(a, b)) {
+            assertThat(catalogVersion.lastModified()).satisfiesAnyOf(
+                    lastModified -> assertThat(lastModified).isEqualTo(-1),
+                    lastModified -> assertThat(lastModified).isLessThanOrEqualTo(System.currentTimeMillis()));
+        }
+        assertThat(notModified(a, b.eTag())).isTrue();
+    }
+
+    private boolean notModified(CatalogVersion catalogVersion, String eTag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("If-None-Match", eTag);
+        return new ServletWebRequest(request, new MockHttpServletResponse())
+                .checkNotModified(catalogVersion.eTag(), catalogVersion.lastModified());
+    }
+
+    private CatalogVersion start(List<Object> events) {
+        CatalogVersion catalogVersion = new CatalogVersion(catalogRevisionRepository, transactionManager, events::add,
+                Duration.ofHours(1));
+        catalogVersion.start();
+        started.add(catalogVersion);
+        return catalogVersion;
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(CatalogVersion::stop);
+        jdbcTemplate.update("DELETE FROM catalog_revision");
+    }
+}
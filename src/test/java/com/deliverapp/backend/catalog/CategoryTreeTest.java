@@ -0,0 +1,60 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.Category;
+import com.deliverapp.backend.model.Service;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CategoryTreeTest {
+
+    @Test
+    void testIndexesAreSortedAndPrecomputed() {
+        Service market = service(1L, "DeliVerMarket");
+        Service food = service(2L, "DeliVerFood");
+        Category drinks = category(10L, market, null, "icecek", 2);
+        Category snacks = category(11L, market, null, "atistirmalik", 1);
+        Category cola = category(12L, market, drinks, "kola", 2);
+        Category water = category(13L, market, drinks, "su", 1);
+        Category pizza = category(20L, food, null, "pizza", 1);
+
+        CategoryTree tree = CategoryTree.of(List.of(drinks, snacks, cola, water, pizza));
+
+        assertThat(tree.rootsOfService(1L)).extracting(CategoryTree.Node::key).containsExactly("atistirmalik", "icecek");
+        assertThat(tree.childrenOf(10L)).extracting(CategoryTree.Node::key).containsExactly("su", "kola");
+        assertThat(tree.byService(2L)).extracting(CategoryTree.Node::serviceName).containsExactly("DeliVerFood");
+        assertThat(tree.byKey("icecek")).hasValueSatisfying(node -> assertThat(node.hasChildren()).isTrue());
+        assertThat(tree.byId(11L)).hasValueSatisfying(node -> assertThat(node.hasChildren()).isFalse());
+        assertThat(tree.childrenOf(99L)).isEmpty();
+        assertThat(tree.byKey("yok")).isEmpty();
+    }
+
+    @Test
+    void testListsAreImmutable() {
+        Service market = service(1L, "DeliVerMarket");
+        CategoryTree tree = CategoryTree.of(List.of(category(10L, market, null, "icecek", 1)));
+
+        org.junit.jupiter.api.Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> tree.byService(1L).clear());
+    }
+
+    private Service service(Long id, String name) {
+        Service service = new Service();
+        service.setId(id);
+        service.setName(name);
+        return service;
+    }
+
+    private Category category(Long id, Service service, Category parent, String key, int sortOrder) {
+        Category category = new Category();
+        category.setId(id);
+        category.setService(service);
+        category.setParent(parent);
+        category.setKey(key);
+        category.setName(key);
+        category.setSortOrder(sortOrder);
+        return category;
+    }
+}
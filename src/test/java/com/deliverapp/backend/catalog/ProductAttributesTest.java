@@ -0,0 +1,34 @@
+package com.deliverapp.backend.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductAttributesTest {
+    private final ProductAttributes productAttributes = new ProductAttributes(new ObjectMapper());
+    private final LocalDateTime version = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Test
+    void testParsesOncePerProductVersion() {
+        String json = "{\"mainImage\": \"main.png\", \"imageUrl\": \"url.png\", \"calories\": 120}";
+
+        ProductAttributes.Parsed first = productAttributes.get(1L, version, json);
+        assertThat(productAttributes.get(1L, version, json)).isSameAs(first);
+        assertThat(productAttributes.get(1L, version.plusSeconds(1), "{\"image\": \"new.png\"}").primaryImage())
+                .isEqualTo("new.png");
+
+        assertThat(first.primaryImage()).isEqualTo("url.png");
+        assertThat(first.cardAttributes()).containsOnlyKeys("imageUrl", "mainImage");
+        assertThat(first.attributes()).containsEntry("calories", 120);
+    }
+
+    @Test
+    void testMissingOrMalformedJsonIsEmpty() {
+        assertThat(productAttributes.get(2L, version, null).attributes()).isEmpty();
+        assertThat(productAttributes.get(2L, version, "{bozuk").primaryImage()).isNull();
+        assertThat(productAttributes.get(null, null, "{\"image\": 5}").primaryImage()).isNull();
+    }
+}
@@ -0,0 +1,113 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.Category;
+import com.deliverapp.backend.model.Product;
+import com.deliverapp.backend.model.Service;
+import com.deliverapp.backend.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class ProductSearchIndexTest {
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+    private Product chocolate;
+    private Product cake;
+    private Product pizza;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        chocolate = product(1L, 1L, 10L, "Sütlü Çikolata", "Tablet", "{\"brand\":\"Ülker\"}");
+        cake = product(2L, 1L, 11L, "Kek", "Çikolatalı kek", "{}");
+        pizza = product(3L, 2L, 20L, "Karışık Pizza", "Sucuklu", "{\"image\":\"https://cdn.example.com/pizza.png\"}");
+        when(productRepository.findAllByIsActiveTrue()).thenReturn(List.of(chocolate, cake, pizza));
+        index = new ProductSearchIndex(productRepository, new ProductAttributes(new ObjectMapper()));
+    }
+
+    @Test
+    void testFoldsTurkishCharactersAndMatchesPrefixes() {
+        assertThat(index.search("cikolata", null, null)).containsExactly(1L, 2L);
+        assertThat(index.search("ÇİKO", null, null)).containsExactly(1L, 2L);
+        assertThat(index.search("ulker", null, null)).containsExactly(1L);
+        assertThat(index.search("karisik piz", null, null)).containsExactly(3L);
+    }
+
+    @Test
+    void testRanksNameMatchesFirstAndRequiresEveryToken() {
+        assertThat(index.search("kek", null, null)).containsExactly(2L);
+        assertThat(index.search("cikolatali", null, null)).containsExactly(2L);
+        assertThat(index.search("cikolata pizza", null, null)).isEmpty();
+        assertThat(index.search("cdn", null, null)).isEmpty();
+        assertThat(index.search("   ", null, null)).isEmpty();
+    }
+
+    @Test
+    void testFiltersByServiceAndCategory() {
+        assertThat(index.search("cikolata", 1L, 11L)).containsExactly(2L);
+        assertThat(index.search("cikolata", 2L, null)).isEmpty();
+    }
+
+    @Test
+    void testReindexAppliesUpdatesAndDeactivations() {
+        index.search("kek", null, null);
+
+        cake.setName("Browni");
+        cake.setDescription(null);
+        when(productRepository.findById(2L)).thenReturn(Optional.of(cake));
+        index.reindex(2L);
+        assertThat(index.search("kek", null, null)).isEmpty();
+        assertThat(index.search("brow", null, null)).containsExactly(2L);
+
+        chocolate.setIsActive(false);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(chocolate));
+        index.reindex(1L);
+        assertThat(index.search("cikolata", null, null)).isEmpty();
+
+        when(productRepository.findById(3L)).thenReturn(Optional.empty());
+        index.reindex(3L);
+        assertThat(index.search("pizza", null, null)).isEmpty();
+    }
+
+    @Test
+    void testRemoteChangeRereadsEveryProduct() {
+        index.search("kek", null, null);
+
+        // Renamed and deactivated on another instance; no product-level events arrive here
+        cake.setName("Browni");
+        cake.setDescription(null);
+        when(productRepository.findAllByIsActiveTrue()).thenReturn(List.of(chocolate, cake));
+        index.onRemoteCatalogChanged(new RemoteCatalogChangedEvent(7));
+
+        assertThat(index.search("kek", null, null)).isEmpty();
+        assertThat(index.search("brow", null, null)).containsExactly(2L);
+        assertThat(index.search("pizza", null, null)).isEmpty();
+        assertThat(index.search("cikolata", null, null)).containsExactly(1L);
+    }
+
+    private Product product(Long id, Long serviceId, Long categoryId, String name, String description, String attributesJson) {
+        Service service = new Service();
+        service.setId(serviceId);
+        Category category = new Category();
+        category.setId(categoryId);
+
+        Product product = new Product();
+        product.setId(id);
+        product.setService(service);
+        product.setCategory(category);
+        product.setName(name);
+        product.setDescription(description);
+        product.setAttributesJson(attributesJson);
+        return product;
+    }
+}
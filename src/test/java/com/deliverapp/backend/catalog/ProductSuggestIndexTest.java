@@ -0,0 +1,92 @@
+package com.deliverapp.backend.catalog;
+
+import com.deliverapp.backend.model.Product;
+import com.deliverapp.backend.model.Service;
+import com.deliverapp.backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class ProductSuggestIndexTest {
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSuggestIndex index;
+    private Product pizza;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        pizza = product(1L, 2L, "Karışık Pizza", "food-karisik-pizza");
+        Product pide = product(2L, 2L, "Kıymalı Pide", "food-kiymali-pide");
+        Product pistachio = product(3L, 1L, "Antep Fıstığı", "market-fistik");
+        when(productRepository.findAllByIsActiveTrue()).thenReturn(List.of(pizza, pide, pistachio));
+        index = new ProductSuggestIndex(productRepository);
+    }
+
+    @Test
+    void testMatchesNamesWordsAndKeysWithinService() {
+        assertThat(index.suggest("pi", 2L, 10)).extracting(ProductSuggestIndex.Suggestion::name)
+                .containsExactly("Kıymalı Pide", "Karışık Pizza");
+        assertThat(index.suggest("KARIŞIK p", 2L, 10)).extracting(ProductSuggestIndex.Suggestion::id).containsExactly(1L);
+        assertThat(index.suggest("food-kiy", 2L, 10)).extracting(ProductSuggestIndex.Suggestion::id).containsExactly(2L);
+        assertThat(index.suggest("fistig", 2L, 10)).isEmpty();
+        assertThat(index.suggest("fistig", 1L, 10)).extracting(ProductSuggestIndex.Suggestion::id).containsExactly(3L);
+    }
+
+    @Test
+    void testHonoursLimitAndIgnoresBlankPrefix() {
+        assertThat(index.suggest("pi", 2L, 1)).hasSize(1);
+        assertThat(index.suggest(" ", 2L, 10)).isEmpty();
+        assertThat(index.suggest("pi", 99L, 10)).isEmpty();
+    }
+
+    @Test
+    void testReindexMovesRenamesAndRemovesProducts() {
+        index.suggest("pi", 2L, 10);
+
+        pizza.setName("Margarita");
+        pizza.getService().setId(1L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(pizza));
+        index.reindex(1L);
+        assertThat(index.suggest("pi", 2L, 10)).extracting(ProductSuggestIndex.Suggestion::id).containsExactly(2L);
+        assertThat(index.suggest("marg", 1L, 10)).extracting(ProductSuggestIndex.Suggestion::id).containsExactly(1L);
+
+        when(productRepository.findById(2L)).thenReturn(Optional.empty());
+        index.reindex(2L);
+        assertThat(index.suggest("pi", 2L, 10)).isEmpty();
+    }
+
+    @Test
+    void testRemoteChangeRebuildsEveryService() {
+        index.suggest("pi", 2L, 10);
+
+        // Changed on another instance; no product-level events arrive here
+        Product lahmacun = product(4L, 2L, "Lahmacun", "food-lahmacun");
+        when(productRepository.findAllByIsActiveTrue()).thenReturn(List.of(pizza, lahmacun));
+        index.onRemoteCatalogChanged(new RemoteCatalogChangedEvent(7));
+
+        assertThat(index.suggest("pi", 2L, 10)).extracting(ProductSuggestIndex.Suggestion::id).containsExactly(1L);
+        assertThat(index.suggest("lah", 2L, 10)).extracting(ProductSuggestIndex.Suggestion::id).containsExactly(4L);
+        assertThat(index.suggest("fistig", 1L, 10)).isEmpty();
+    }
+
+    private Product product(Long id, Long serviceId, String name, String key) {
+        Service service = new Service();
+        service.setId(serviceId);
+
+        Product product = new Product();
+        product.setId(id);
+        product.setService(service);
+        product.setName(name);
+        product.setKey(key);
+        return product;
+    }
+}
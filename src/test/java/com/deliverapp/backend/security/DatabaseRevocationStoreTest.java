@@ -0,0 +1,58 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The purge runs in its own transaction, so this test commits and cleans up itself
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "jwt.revocation.store=database")
+@Import(DatabaseRevocationStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DatabaseRevocationStoreTest {
+    @Autowired
+    private DatabaseRevocationStore store;
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Test
+    void testRevocationsPersistUntilTheTokenExpires() {
+        try {
+            store.revoke("live-token-id", Instant.now().plusSeconds(3600));
+            store.revoke("expired-token-id", Instant.now().minusSeconds(1));
+
+            assertThat(store.isRevoked("live-token-id")).isTrue();
+            assertThat(store.isRevoked("expired-token-id")).isFalse();
+            assertThat(store.isRevoked("unknown-token-id")).isFalse();
+
+            // Other instances' Bloom filters pick up only unexpired revocations newer than their last sync
+            List<String> synced = new ArrayList<>();
+            store.forEachRevokedSince(Instant.now().minusSeconds(60), (tokenId, expiresAt) -> synced.add(tokenId));
+            assertThat(synced).containsExactly("live-token-id");
+            synced.clear();
+            store.forEachRevokedSince(Instant.now().plusSeconds(60), (tokenId, expiresAt) -> synced.add(tokenId));
+            assertThat(synced).isEmpty();
+
+            assertThat(store.purgeExpired()).isEqualTo(1);
+            assertThat(revokedTokenRepository.findAll()).singleElement()
+                    .satisfies(row -> assertThat(row.getTokenId()).isEqualTo("live-token-id"));
+        } finally {
+            revokedTokenRepository.deleteAll();
+        }
+    }
+}
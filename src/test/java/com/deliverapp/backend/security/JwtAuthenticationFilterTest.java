@@ -1,12 +1,19 @@
 package com.deliverapp.backend.security;
 
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+import com.deliverapp.backend.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import jakarta.servlet.FilterChain;
+import java.time.Duration;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -16,6 +23,7 @@ class JwtAuthenticationFilterTest {
     private UserDetailsService userDetailsService;
     private TokenBlacklist tokenBlacklist;
     private JwtAuthenticationFilter filter;
+    private UserRepository userRepository;
     private FilterChain filterChain;
 
     @BeforeEach
@@ -23,7 +31,9 @@ class JwtAuthenticationFilterTest {
         jwtTokenProvider = mock(JwtTokenProvider.class);
         userDetailsService = mock(UserDetailsService.class);
         tokenBlacklist = mock(TokenBlacklist.class);
-        filter = new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService, tokenBlacklist);
+        userRepository = mock(UserRepository.class);
+        filter = new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService, tokenBlacklist,
+                new StatelessAuthentication(userRepository, false, Duration.ofMinutes(1)), new VerifiedTokenCache(100));
         filterChain = mock(FilterChain.class);
     }
 
@@ -45,4 +55,66 @@ class JwtAuthenticationFilterTest {
         assertEquals(401, response.getStatus());
         assertTrue(response.getContentAsString().contains("Token iptal edilmiş"));
     }
+
+    @Test
+    void testPrincipalCarriesLoadedUser() throws Exception {
+        User user = User.builder().id(42L).email("user@deliver.app").username("user").password("hash").build();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer validtoken");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(jwtTokenProvider.parseToken("validtoken")).thenReturn(Jwts.claims().setSubject("user@deliver.app"));
+        when(userDetailsService.loadUserByUsername("user@deliver.app")).thenReturn(user);
+        try {
+            filter.doFilterInternal(request, response, filterChain);
+            // Controllers read the id from here instead of looking the user up again
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            assertSame(user, principal);
+            assertEquals(42L, ((User) principal).getId());
+            verify(userDetailsService, times(1)).loadUserByUsername("user@deliver.app");
+            verify(jwtTokenProvider, times(1)).parseToken("validtoken");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void testStatelessModeTrustsClaims() throws Exception {
+        JwtTokenProvider provider = new JwtTokenProvider(
+                "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef", 60_000L, 600_000L);
+        StatelessAuthentication stateless = new StatelessAuthentication(userRepository, true, Duration.ofMinutes(1));
+        filter = new JwtAuthenticationFilter(provider, userDetailsService, tokenBlacklist, stateless,
+                new VerifiedTokenCache(100));
+        String token = provider.generateToken(User.builder().id(7L).email("claims@deliver.app").role(Role.USER).build());
+        // The role was changed after the token was issued
+        when(userRepository.findRoleById(7L)).thenReturn(Optional.of(Role.ADMIN));
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                SecurityContextHolder.clearContext();
+                MockHttpServletRequest request = new MockHttpServletRequest();
+                request.addHeader("Authorization", "Bearer " + token);
+                filter.doFilterInternal(request, new MockHttpServletResponse(), filterChain);
+            }
+            User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            assertInstanceOf(ClaimsUser.class, principal);
+            assertEquals(7L, principal.getId());
+            assertEquals("claims@deliver.app", principal.getEmail());
+            assertEquals(Role.ADMIN, principal.getRole());
+            verifyNoInteractions(userDetailsService);
+            verify(userRepository, times(1)).findRoleById(7L);
+
+            // A deleted account is rejected once its cached role is dropped
+            when(userRepository.findRoleById(7L)).thenReturn(Optional.empty());
+            stateless.evict(7L);
+            SecurityContextHolder.clearContext();
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer " + token);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilterInternal(request, response, filterChain);
+            assertEquals(401, response.getStatus());
+            assertNull(SecurityContextHolder.getContext().getAuthentication());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
 }
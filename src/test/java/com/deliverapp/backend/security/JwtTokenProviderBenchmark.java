@@ -0,0 +1,76 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT cost in JwtAuthenticationFilter: the old path (parser and key rebuilt, token
+ * verified three times) against {@link JwtTokenProvider#parseToken} and the
+ * {@link VerifiedTokenCache} hit. Not a unit test; run with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.deliverapp.backend.security.JwtTokenProviderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private JwtTokenProvider provider;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(SECRET, 3_600_000L, 604_800_000L);
+        verifiedTokenCache = new VerifiedTokenCache(10_000);
+        token = provider.generateToken(User.builder().id(1L).email("bench@deliver.app").role(Role.USER).build());
+    }
+
+    // getUsernameFromToken + validateToken + isTokenExpired, each building its own key and parser
+    @Benchmark
+    public boolean previousRequestPath() {
+        String username = parseWithNewParser(token).getSubject();
+        parseWithNewParser(token);
+        boolean expired = parseWithNewParser(token).getExpiration().before(new java.util.Date());
+        return username != null && !expired;
+    }
+
+    @Benchmark
+    public String parseOnce() {
+        return provider.parseToken(token).getSubject();
+    }
+
+    // Filter fast path for a token that was already verified
+    @Benchmark
+    public String cachedVerification() {
+        return verifiedTokenCache.get(token, provider::parseToken).getSubject();
+    }
+
+    private static Claims parseWithNewParser(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtTokenProviderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
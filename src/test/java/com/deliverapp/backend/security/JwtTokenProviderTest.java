@@ -0,0 +1,38 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private final User user = User.builder().id(5L).email("token@deliver.app").role(Role.MODERATOR).build();
+
+    @Test
+    void testParseTokenReturnsVerifiedClaims() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000L, 600_000L);
+        Claims claims = provider.parseToken(provider.generateToken(user));
+
+        assertEquals("token@deliver.app", claims.getSubject());
+        assertEquals("access", claims.get("type"));
+        User principal = provider.getPrincipalFromClaims(claims);
+        assertEquals(5L, principal.getId());
+        assertEquals(Role.MODERATOR, principal.getRole());
+    }
+
+    @Test
+    void testParseTokenRejectsExpiredAndForeignTokens() {
+        JwtTokenProvider expiring = new JwtTokenProvider(SECRET, -1_000L, 600_000L);
+        assertThrows(ExpiredJwtException.class, () -> expiring.parseToken(expiring.generateToken(user)));
+
+        JwtTokenProvider other = new JwtTokenProvider(SECRET.replace('0', 'f'), 60_000L, 600_000L);
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000L, 600_000L);
+        assertThrows(SignatureException.class, () -> provider.parseToken(other.generateToken(user)));
+    }
+}
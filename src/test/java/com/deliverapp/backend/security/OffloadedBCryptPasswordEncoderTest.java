@@ -0,0 +1,87 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.exception.PasswordHashingBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffloadedBCryptPasswordEncoderTest {
+
+    @Test
+    void testEncodesAndMatchesOnThePool() {
+        OffloadedBCryptPasswordEncoder encoder = new OffloadedBCryptPasswordEncoder(4, Duration.ofMillis(250), 2, 4);
+        try {
+            String hash = encoder.encode("sifre123");
+            assertTrue(hash.startsWith("$2a$04$"));
+            assertTrue(encoder.matches("sifre123", hash));
+            assertFalse(encoder.matches("yanlis", hash));
+        } finally {
+            encoder.stop();
+        }
+    }
+
+    @Test
+    void testOnlyStoredHashesWithLowerCostAreUpgraded() {
+        OffloadedBCryptPasswordEncoder encoder = new OffloadedBCryptPasswordEncoder(5, Duration.ofMillis(250), 1, 4);
+        try {
+            assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("sifre123")));
+            // A stronger hash, e.g. from an instance that calibrated higher, is kept
+            assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("sifre123")));
+            assertFalse(encoder.upgradeEncoding(encoder.encode("sifre123")));
+            // Hashes at another cost still verify
+            assertTrue(encoder.matches("sifre123", new BCryptPasswordEncoder(4).encode("sifre123")));
+        } finally {
+            encoder.stop();
+        }
+    }
+
+    @Test
+    void testSaturatedPoolRejectsInsteadOfQueueingForever() throws Exception {
+        // One thread and one queue slot: of four simultaneous slow hashes at least two must be refused
+        OffloadedBCryptPasswordEncoder encoder = new OffloadedBCryptPasswordEncoder(12, Duration.ofMillis(250), 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return encoder.encode("sifre123");
+                }));
+            }
+            start.countDown();
+
+            int busy = 0;
+            for (Future<String> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                } catch (java.util.concurrent.ExecutionException e) {
+                    assertInstanceOf(PasswordHashingBusyException.class, e.getCause());
+                    busy++;
+                }
+            }
+            assertTrue(busy >= 2, "rejected " + busy);
+        } finally {
+            callers.shutdownNow();
+            encoder.stop();
+        }
+    }
+
+    @Test
+    void testCalibrationStaysWithinBounds() {
+        assertEquals(OffloadedBCryptPasswordEncoder.MIN_STRENGTH, OffloadedBCryptPasswordEncoder.calibrate(Duration.ofNanos(1)));
+        int calibrated = OffloadedBCryptPasswordEncoder.calibrate(Duration.ofMillis(250));
+        assertTrue(calibrated >= OffloadedBCryptPasswordEncoder.MIN_STRENGTH
+                && calibrated <= OffloadedBCryptPasswordEncoder.MAX_STRENGTH);
+    }
+}
@@ -0,0 +1,126 @@
+package com.deliverapp.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RevocationBloomFilterTest {
+    private static final long LIFETIME = 3_600_000L;
+
+    @Test
+    void testRevokedTokensAreAlwaysFound() {
+        RevocationStore store = spy(new InMemoryRevocationStore());
+        RevocationBloomFilter filter = new RevocationBloomFilter(store, true, LIFETIME, 2_000, 0.01, Duration.ofSeconds(5));
+        List<String> revoked = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            String id = TokenHashes.sha256("revoked-" + i);
+            // Spread over the whole lifetime, so every slice gets entries
+            Instant expiresAt = Instant.now().plusMillis(60_000 + (LIFETIME - 120_000) * i / 2_000);
+            store.revoke(id, expiresAt);
+            filter.put(id, expiresAt);
+            revoked.add(id);
+        }
+
+        for (String id : revoked) {
+            assertTrue(filter.isRevoked(id));
+        }
+    }
+
+    @Test
+    void testStoreIsOnlyAskedAboutPossibleHits() {
+        RevocationStore store = mock(RevocationStore.class);
+        RevocationBloomFilter filter = new RevocationBloomFilter(store, true, LIFETIME, 1_000, 0.01, Duration.ofSeconds(5));
+        for (int i = 0; i < 1_000; i++) {
+            filter.put(TokenHashes.sha256("revoked-" + i), Instant.now().plusMillis(60_000 + (LIFETIME - 120_000) * i / 1_000));
+        }
+
+        int checks = 20_000;
+        for (int i = 0; i < checks; i++) {
+            assertFalse(filter.isRevoked(TokenHashes.sha256("active-" + i)));
+        }
+
+        // Sized for 1% at the expected load; allow for statistical noise
+        assertTrue(filter.falsePositiveRate() < 0.03, "false-positive rate " + filter.falsePositiveRate());
+        verify(store, atMost((int) (checks * 0.03))).isRevoked(anyString());
+    }
+
+    @Test
+    void testTokensOutlivingTheWindowAreKeptExactly() {
+        RevocationStore store = new InMemoryRevocationStore();
+        RevocationBloomFilter filter = new RevocationBloomFilter(store, true, LIFETIME, 1_000, 0.01, Duration.ofSeconds(5));
+        String refreshToken = TokenHashes.sha256("refresh");
+        Instant expiresAt = Instant.now().plusMillis(LIFETIME * 7);
+        store.revoke(refreshToken, expiresAt);
+        filter.put(refreshToken, expiresAt);
+
+        assertTrue(filter.isRevoked(refreshToken));
+    }
+
+    @Test
+    void testSharedStoreRevocationsArePickedUpBySync() {
+        String foreign = TokenHashes.sha256("revoked-elsewhere");
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        RevocationStore store = mock(RevocationStore.class);
+        when(store.isShared()).thenReturn(true);
+        when(store.isRevoked(foreign)).thenReturn(true);
+        doAnswer(invocation -> {
+            BiConsumer<String, Instant> action = invocation.getArgument(1);
+            action.accept(foreign, expiresAt);
+            return null;
+        }).when(store).forEachRevokedSince(any(), any());
+        RevocationBloomFilter filter = new RevocationBloomFilter(store, true, LIFETIME, 1_000, 0.01, Duration.ofHours(1));
+
+        filter.start();
+        try {
+            assertTrue(filter.isRevoked(foreign));
+            verify(store, times(1)).isRevoked(foreign);
+            // Freshly synced: a token the filter doesn't know stays in memory
+            assertFalse(filter.isRevoked(TokenHashes.sha256("active")));
+            verify(store, never()).isRevoked(TokenHashes.sha256("active"));
+        } finally {
+            filter.stop();
+        }
+    }
+
+    @Test
+    void testNegativesGoToTheStoreWhileSyncIsFailing() throws InterruptedException {
+        String foreign = TokenHashes.sha256("revoked-elsewhere");
+        RevocationStore store = mock(RevocationStore.class);
+        when(store.isShared()).thenReturn(true);
+        when(store.isRevoked(foreign)).thenReturn(true);
+        RevocationBloomFilter filter = new RevocationBloomFilter(store, true, LIFETIME, 1_000, 0.01, Duration.ofMillis(20));
+
+        filter.start();
+        try {
+            assertFalse(filter.isRevoked(foreign));
+            doThrow(new IllegalStateException("database down")).when(store).forEachRevokedSince(any(), any());
+            Thread.sleep(200);
+
+            assertTrue(filter.isRevoked(foreign));
+        } finally {
+            filter.stop();
+        }
+    }
+
+    @Test
+    void testExpiredOverflowEntriesArePurged() throws InterruptedException {
+        // 80 ms lifetime: the ring covers 90 ms, so both tokens go to the overflow map
+        RevocationBloomFilter filter = new RevocationBloomFilter(new InMemoryRevocationStore(), true, 80, 1_000, 0.01,
+                Duration.ofSeconds(5));
+        filter.put(TokenHashes.sha256("short"), Instant.now().plusMillis(150));
+        filter.put(TokenHashes.sha256("long"), Instant.now().plusSeconds(600));
+
+        Thread.sleep(200);
+
+        assertEquals(1, filter.purgeOverflow());
+        assertEquals(0, filter.purgeOverflow());
+    }
+}
@@ -0,0 +1,61 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBlacklistTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private final JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000L, 600_000L);
+    private final InMemoryRevocationStore store = new InMemoryRevocationStore();
+    private final TokenBlacklist blacklist = new TokenBlacklist(store,
+            new RevocationBloomFilter(store, true, 60_000L, 1_000, 0.01, Duration.ofSeconds(5)), provider,
+            new VerifiedTokenCache(100));
+
+    @Test
+    void testRevokedTokenIsStoredByHash() {
+        String token = provider.generateToken(User.builder().id(1L).email("out@deliver.app").role(Role.USER).build());
+        String other = provider.generateToken(User.builder().id(2L).email("in@deliver.app").role(Role.USER).build());
+
+        blacklist.blacklistToken(token);
+
+        assertTrue(blacklist.isBlacklisted(token));
+        assertFalse(blacklist.isBlacklisted(other));
+        assertTrue(store.isRevoked(TokenHashes.sha256(token)));
+        assertFalse(store.isRevoked(token));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testExpiredOrInvalidTokensAreNotStored() {
+        JwtTokenProvider expired = new JwtTokenProvider(SECRET, -1_000L, 600_000L);
+        blacklist.blacklistToken(expired.generateToken(User.builder().id(1L).email("old@deliver.app").role(Role.USER).build()));
+        blacklist.blacklistToken("not-a-jwt");
+
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testEntriesArePurgedWhenTheTokenExpires() throws InterruptedException {
+        store.revoke("short", Instant.now().plusMillis(50));
+        store.revoke("long", Instant.now().plusSeconds(60));
+        assertTrue(store.isRevoked("short"));
+
+        Thread.sleep(100);
+
+        assertFalse(store.isRevoked("short"));
+        assertTrue(store.isRevoked("long"));
+        // Removal follows Caffeine's timer wheel, which runs at roughly one-second granularity
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, store.size());
+    }
+}
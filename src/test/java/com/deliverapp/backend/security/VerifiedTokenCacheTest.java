@@ -0,0 +1,73 @@
+package com.deliverapp.backend.security;
+
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private final JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000L, 600_000L);
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(100);
+    private final InMemoryRevocationStore store = new InMemoryRevocationStore();
+    private final TokenBlacklist blacklist = new TokenBlacklist(store,
+            new RevocationBloomFilter(store, true, 60_000L, 1_000, 0.01, Duration.ofSeconds(5)), provider, cache);
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final Function<String, Claims> verifier = token -> {
+        verifications.incrementAndGet();
+        return provider.parseToken(token);
+    };
+
+    @Test
+    void testRepeatedTokenIsVerifiedOnce() {
+        String token = provider.generateToken(User.builder().id(3L).email("hot@deliver.app").role(Role.USER).build());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("hot@deliver.app", cache.get(token, verifier).getSubject());
+        }
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    void testBlacklistingEvictsToken() {
+        String token = provider.generateToken(User.builder().id(3L).email("logout@deliver.app").role(Role.USER).build());
+        cache.get(token, verifier);
+
+        blacklist.blacklistToken(token);
+        cache.get(token, verifier);
+
+        assertEquals(2, verifications.get());
+        assertTrue(blacklist.isBlacklisted(token));
+    }
+
+    @Test
+    void testEntriesDoNotOutliveTheToken() {
+        Claims expired = Jwts.claims().setSubject("old@deliver.app").setExpiration(new Date(System.currentTimeMillis() - 1));
+        cache.get("expired", token -> {
+            verifications.incrementAndGet();
+            return expired;
+        });
+        cache.get("expired", token -> {
+            verifications.incrementAndGet();
+            return expired;
+        });
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void testInvalidTokenIsNotCached() {
+        assertThrows(MalformedJwtException.class, () -> cache.get("not-a-jwt", verifier));
+        assertThrows(MalformedJwtException.class, () -> cache.get("not-a-jwt", verifier));
+        assertEquals(2, verifications.get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.deliverapp.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The writer inserts on its own connection, so this test runs without the usual rollback and cleans up itself
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AuditLogServiceTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testFullBatchesAreWrittenWithoutWaitingForTheInterval() throws InterruptedException {
+        AuditLogService auditLogService = start(3, Duration.ofHours(1));
+        for (int i = 0; i < 7; i++) {
+            auditLogService.log("LOGIN", "user" + i, "Kullanıcı giriş yaptı");
+        }
+
+        awaitRows(6);
+        assertThat(rows()).isEqualTo(6);
+
+        // The seventh entry is still waiting for its batch and goes out on shutdown
+        auditLogService.stop();
+        assertThat(rows()).isEqualTo(7);
+    }
+
+    @Test
+    void testPartialBatchIsWrittenAfterFlushInterval() throws InterruptedException {
+        AuditLogService auditLogService = start(100, Duration.ofMillis(200));
+        auditLogService.log("REGISTER", "ayse", "Kullanıcı kaydı oluşturuldu");
+
+        awaitRows(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT username FROM audit_logs", String.class)).isEqualTo("ayse");
+        auditLogService.stop();
+    }
+
+    @Test
+    void testEntriesSurviveRollbackOfTheCallersTransaction() throws InterruptedException {
+        AuditLogService auditLogService = start(100, Duration.ofMillis(200));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            auditLogService.log("REGISTER-FAIL", "ayse", "Email zaten kayıtlı");
+            status.setRollbackOnly();
+        });
+
+        auditLogService.stop();
+        assertThat(rows()).isEqualTo(1);
+    }
+
+    private AuditLogService start(int flushSize, Duration flushInterval) {
+        AuditLogService auditLogService = new AuditLogService(jdbcTemplate, 64, flushSize, flushInterval,
+                AuditLogService.OverflowPolicy.CALLER_RUNS);
+        auditLogService.start();
+        return auditLogService;
+    }
+
+    private void awaitRows(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (rows() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs", Integer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM audit_logs");
+    }
+}
@@ -0,0 +1,146 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.dto.request.LoginRequest;
+import com.deliverapp.backend.dto.request.RegisterRequest;
+import com.deliverapp.backend.model.Role;
+import com.deliverapp.backend.model.User;
+import com.deliverapp.backend.repository.UserRepository;
+import com.deliverapp.backend.security.JwtTokenProvider;
+import com.deliverapp.backend.security.OffloadedBCryptPasswordEncoder;
+import com.deliverapp.backend.security.StatelessAuthentication;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {"security.password.bcrypt-strength=5",
+        "jwt.secret=0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef"})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AuthService.class, AuditLogService.class, JwtTokenProvider.class, StatelessAuthentication.class,
+        OffloadedBCryptPasswordEncoder.class})
+public class AuthServiceQueryCountTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OffloadedBCryptPasswordEncoder passwordEncoder;
+
+    @SpyBean
+    private AuditLogService auditLogService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        User user = User.builder()
+                .username("ayse")
+                .email("ayse@deliver.app")
+                .password(passwordEncoder.encode("secret123"))
+                .role(Role.USER)
+                .build();
+        entityManager.persist(user);
+    }
+
+    @Test
+    void testLoginLoadsUserOnce() {
+        // The audit entry is written by the background writer, outside these statistics
+        assertThat(countStatements(() -> assertThat(authService.login(login("ayse@deliver.app", "secret123")).getToken())
+                .isNotBlank())).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedLoginsLoadUserOnce() {
+        assertThat(countStatements(() -> assertThatThrownBy(() -> authService.login(login("ayse@deliver.app", "wrong")))
+                .hasMessage("Geçersiz email veya şifre"))).isEqualTo(1);
+        assertThat(countStatements(() -> assertThatThrownBy(() -> authService.login(login("nobody@deliver.app", "secret123")))
+                .hasMessage("Geçersiz email veya şifre"))).isEqualTo(1);
+    }
+
+    @Test
+    void testMissingPasswordFailsLikeAWrongOne() {
+        for (String email : new String[]{"ayse@deliver.app", "nobody@deliver.app"}) {
+            assertThat(countStatements(() -> assertThatThrownBy(() -> authService.login(login(email, null)))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Geçersiz email veya şifre"))).isZero();
+            verify(auditLogService).log("LOGIN-FAIL", email, "Giriş başarısız: Şifre alanı boş");
+        }
+    }
+
+    @Test
+    void testLoginRehashesLowerCostWithOneUpdate() {
+        User legacy = User.builder()
+                .username("mehmet")
+                .email("mehmet@deliver.app")
+                .password(new BCryptPasswordEncoder(4).encode("secret123"))
+                .role(Role.USER)
+                .build();
+        entityManager.persist(legacy);
+
+        assertThat(countStatements(() -> authService.login(login("mehmet@deliver.app", "secret123")))).isEqualTo(2);
+
+        entityManager.clear();
+        String rehashed = userRepository.findById(legacy.getId()).orElseThrow().getPassword();
+        assertThat(passwordEncoder.upgradeEncoding(rehashed)).isFalse();
+        assertThat(passwordEncoder.matches("secret123", rehashed)).isTrue();
+    }
+
+    @Test
+    void testRegisterChecksEmailAndUsernameInOneQuery() {
+        // Existence check and user insert
+        assertThat(countStatements(() -> authService.register(register("Zeynep@Deliver.app", "zeynep"))))
+                .isEqualTo(2);
+
+        assertThat(countStatements(() -> assertThatThrownBy(() -> authService.register(register("ayse@deliver.app", "other")))
+                .hasMessage("Bu email adresi zaten kayıtlı"))).isEqualTo(1);
+        assertThat(countStatements(() -> assertThatThrownBy(() -> authService.register(register("other@deliver.app", "ayse")))
+                .hasMessage("Bu kullanıcı adı zaten alınmış"))).isEqualTo(1);
+        // Stored lower-cased, so a differently cased email is still a duplicate
+        assertThatThrownBy(() -> authService.register(register("ZEYNEP@deliver.app", "zeynep2")))
+                .hasMessage("Bu email adresi zaten kayıtlı");
+    }
+
+    private LoginRequest login(String email, String password) {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(email);
+        request.setPassword(password);
+        return request;
+    }
+
+    private RegisterRequest register(String email, String username) {
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail(email);
+        request.setUsername(username);
+        request.setPassword("secret123");
+        return request;
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,182 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.dto.request.AddToCartRequest;
+import com.deliverapp.backend.dto.request.UpdateCartItemRequest;
+import com.deliverapp.backend.dto.response.CartResponse;
+import com.deliverapp.backend.model.*;
+import com.deliverapp.backend.repository.CartRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Concurrent mutations of one cart, each in its own committed transaction: no delta may be lost and no two
+// requests may be handed the same version. Runs without the usual rollback and cleans up itself
+@DataJpaTest(properties = "cart.totals.consistency-check=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({CartService.class, ProductAttributes.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CartConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 5;
+
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long userId;
+    private Product pizza;
+
+    @BeforeEach
+    void setUp() {
+        // Waiters queue on the cart row lock; H2's default of one second is too short for a deliberate pile-up
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 30000");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = new User();
+            user.setUsername("tapper");
+            user.setEmail("tapper@deliver.app");
+            user.setPassword("hash");
+            entityManager.persist(user);
+            userId = user.getId();
+
+            com.deliverapp.backend.model.Service service = new com.deliverapp.backend.model.Service();
+            service.setKey("food");
+            service.setName("DeliVerFood");
+            service.setCreatedAt(LocalDateTime.now());
+            service.setUpdatedAt(LocalDateTime.now());
+            entityManager.persist(service);
+
+            Category category = new Category();
+            category.setService(service);
+            category.setName("Pizza");
+            category.setSlug("pizza");
+            entityManager.persist(category);
+
+            pizza = new Product();
+            pizza.setService(service);
+            pizza.setCategory(category);
+            pizza.setName("Margarita");
+            pizza.setSlug("margarita");
+            pizza.setKey("margarita");
+            pizza.setProductType(Product.ProductType.PHYSICAL);
+            entityManager.persist(pizza);
+
+            ProductPricing pricing = new ProductPricing();
+            pricing.setProduct(pizza);
+            pricing.setBasePrice(new BigDecimal("12.50"));
+            entityManager.persist(pricing);
+        });
+        // The cart row exists before the race; concurrent first adds are not what this test is about
+        cartService.addToCart(userId, add(1));
+    }
+
+    @Test
+    void testConcurrentAddsKeepEveryDelta() throws Exception {
+        List<CartResponse> responses = race(() -> cartService.addToCart(userId, add(1)));
+
+        int expectedItems = 1 + THREADS * ADDS_PER_THREAD;
+        Cart stored = cartRepository.findByUserIdAndIsActiveTrue(userId).orElseThrow();
+        assertThat(stored.getTotalItems()).isEqualTo(expectedItems);
+        assertThat(stored.getTotalAmount()).isEqualByComparingTo(new BigDecimal("12.50").multiply(BigDecimal.valueOf(expectedItems)));
+        assertThat(responses).extracting(CartResponse::getTotalItems).doesNotHaveDuplicates();
+        // Every state a client was shown carries its own version
+        assertThat(responses).extracting(CartResponse::getVersion).doesNotHaveDuplicates();
+        assertThat(stored.getVersion()).isEqualTo(expectedItems);
+    }
+
+    @Test
+    void testVersionColumnDefaultsExistingRows() {
+        assertThat(jdbcTemplate.queryForObject("SELECT COLUMN_DEFAULT FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'carts' AND COLUMN_NAME = 'version'", String.class)).isEqualTo("0");
+    }
+
+    @Test
+    void testConcurrentUpdatesKeepTotalsConsistent() throws Exception {
+        Long lineId = cartService.getCart(userId).getCartItems().get(0).getId();
+        race(() -> {
+            UpdateCartItemRequest request = new UpdateCartItemRequest();
+            request.setQuantity(1 + (int) (Thread.currentThread().getId() % 4));
+            return cartService.updateCartItem(userId, lineId, request);
+        });
+
+        // Whichever update won, the stored totals match the stored line
+        CartResponse cart = cartService.getCart(userId);
+        assertThat(cart.getTotalItems()).isEqualTo(cart.getCartItems().get(0).getQuantity());
+        assertThat(cart.getTotalAmount()).isEqualByComparingTo(cart.getCartItems().get(0).getSubtotal());
+    }
+
+    private List<CartResponse> race(Callable<CartResponse> mutation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<CartResponse>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<CartResponse> results = new ArrayList<>();
+                    for (int j = 0; j < ADDS_PER_THREAD; j++) {
+                        results.add(mutation.call());
+                    }
+                    return results;
+                }));
+            }
+            start.countDown();
+            List<CartResponse> responses = new ArrayList<>();
+            for (Future<List<CartResponse>> future : futures) {
+                responses.addAll(future.get());
+            }
+            return responses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private AddToCartRequest add(int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(pizza.getId());
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("cart_items", "carts", "product_pricing", "products", "categories", "services",
+                "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+}
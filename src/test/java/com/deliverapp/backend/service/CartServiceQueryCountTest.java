@@ -0,0 +1,186 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.dto.request.CartBatchRequest;
+import com.deliverapp.backend.dto.request.CartOperationRequest;
+import com.deliverapp.backend.dto.response.CartDeltaResponse;
+import com.deliverapp.backend.dto.response.CartResponse;
+import com.deliverapp.backend.model.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({CartService.class, ProductAttributes.class})
+public class CartServiceQueryCountTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CartService cartService;
+
+    private Statistics statistics;
+    private com.deliverapp.backend.model.Service service;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        service = new com.deliverapp.backend.model.Service();
+        service.setKey("food");
+        service.setName("DeliVerFood");
+        service.setCreatedAt(LocalDateTime.now());
+        service.setUpdatedAt(LocalDateTime.now());
+        entityManager.persist(service);
+
+        category = new Category();
+        category.setService(service);
+        category.setName("Pizza");
+        category.setSlug("pizza");
+        entityManager.persist(category);
+    }
+
+    @Test
+    void testGetCartStatementCountDoesNotGrowWithItems() {
+        User small = userWithCart("small", 1);
+        User large = userWithCart("large", 6);
+
+        long oneItem = countStatements(() -> assertThat(cartService.getCart(small.getId()).getCartItems()).hasSize(1));
+        long sixItems = countStatements(() -> {
+            CartResponse cart = cartService.getCart(large.getId());
+            assertThat(cart.getCartItems()).hasSize(6);
+            assertThat(cart.getCartItems()).allSatisfy(item -> {
+                assertThat(item.getProductName()).startsWith("Pizza");
+                assertThat(item.getVariantName()).isEqualTo("Büyük");
+                assertThat(item.getProductImage()).isEqualTo("pizza.png");
+            });
+        });
+
+        assertThat(sixItems).isEqualTo(oneItem).isEqualTo(1);
+    }
+
+    @Test
+    void testGetCartNeverWrites() {
+        User user = userWithCart("reader", 3);
+        User withoutCart = user("empty");
+        entityManager.flush();
+
+        countStatements(() -> {
+            cartService.getCart(user.getId());
+            CartResponse empty = cartService.getCart(withoutCart.getId());
+            assertThat(empty.getIsEmpty()).isTrue();
+            assertThat(empty.getTotalItems()).isZero();
+            entityManager.flush();
+        });
+
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    void testDeltaResponseOnlyCarriesChangedLine() {
+        User user = userWithCart("delta", 6);
+        entityManager.clear();
+        CartResponse before = cartService.getCart(user.getId());
+        Long changedId = before.getCartItems().get(2).getId();
+        Long removedId = before.getCartItems().get(4).getId();
+
+        long statements = countStatements(() -> {
+            CartDeltaResponse delta = cartService.applyBatchDelta(user.getId(), CartBatchRequest.builder()
+                    .operations(List.of(
+                            CartOperationRequest.builder().type(CartOperationRequest.Type.UPDATE)
+                                    .cartItemId(changedId).quantity(5).build(),
+                            CartOperationRequest.builder().type(CartOperationRequest.Type.REMOVE)
+                                    .cartItemId(removedId).build()))
+                    .build());
+
+            assertThat(delta.getChangedItems()).singleElement().satisfies(item -> {
+                assertThat(item.getId()).isEqualTo(changedId);
+                assertThat(item.getQuantity()).isEqualTo(5);
+                assertThat(item.getProductImage()).isEqualTo("pizza.png");
+            });
+            assertThat(delta.getRemovedItemIds()).containsExactly(removedId);
+            assertThat(delta.getTotalItems()).isEqualTo(13);
+            assertThat(delta.getVersion()).isEqualTo(before.getVersion() + 1);
+            entityManager.flush();
+        });
+
+        // The untouched lines are neither loaded nor converted
+        assertThat(statements).isLessThan(10);
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo(6);
+    }
+
+    private User userWithCart(String name, int itemCount) {
+        User user = user(name);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        entityManager.persist(cart);
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            Product product = new Product();
+            product.setService(service);
+            product.setCategory(category);
+            product.setName("Pizza " + name + " " + i);
+            product.setSlug(name + "-" + i);
+            product.setKey(name + "-" + i);
+            product.setAttributesJson("{\"image\": \"pizza.png\"}");
+            product.setProductType(Product.ProductType.PHYSICAL);
+            entityManager.persist(product);
+
+            ProductVariant variant = new ProductVariant();
+            variant.setProduct(product);
+            variant.setVariantName("Büyük");
+            entityManager.persist(variant);
+
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setProductVariant(variant);
+            item.setQuantity(2);
+            item.setUnitPrice(BigDecimal.TEN);
+            entityManager.persist(item);
+            total = total.add(item.getSubtotal());
+        }
+        cart.setTotalItems(itemCount * 2);
+        cart.setTotalAmount(total);
+        entityManager.flush();
+        return user;
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@deliver.app");
+        user.setPassword("hash");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,221 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.dto.request.AddToCartRequest;
+import com.deliverapp.backend.dto.request.CartBatchRequest;
+import com.deliverapp.backend.dto.request.CartOperationRequest;
+import com.deliverapp.backend.dto.request.UpdateCartItemRequest;
+import com.deliverapp.backend.dto.response.CartItemResponse;
+import com.deliverapp.backend.dto.response.CartResponse;
+import com.deliverapp.backend.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Random add/update/remove sequences and batches: the incrementally maintained totals must always equal a full
+// recomputation. The consistency check mode is on, so every mutation is also checked against SQL sums
+@DataJpaTest(properties = "cart.totals.consistency-check=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({CartService.class, ProductAttributes.class})
+public class CartTotalsPropertyTest {
+    private static final long[] SEEDS = {1L, 7L, 42L, 2024L, 987654321L};
+    private static final int STEPS = 60;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CartService cartService;
+
+    private final List<Product> products = new ArrayList<>();
+    private final List<ProductVariant> variants = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        com.deliverapp.backend.model.Service service = new com.deliverapp.backend.model.Service();
+        service.setKey("food");
+        service.setName("DeliVerFood");
+        service.setCreatedAt(LocalDateTime.now());
+        service.setUpdatedAt(LocalDateTime.now());
+        entityManager.persist(service);
+
+        Category category = new Category();
+        category.setService(service);
+        category.setName("Pizza");
+        category.setSlug("pizza");
+        entityManager.persist(category);
+
+        String[] prices = {"12.50", "7.99", "149.90", "0.01", "33.33"};
+        for (int i = 0; i < prices.length; i++) {
+            Product product = new Product();
+            product.setService(service);
+            product.setCategory(category);
+            product.setName("Pizza " + i);
+            product.setSlug("pizza-" + i);
+            product.setKey("pizza-" + i);
+            product.setProductType(Product.ProductType.PHYSICAL);
+            entityManager.persist(product);
+
+            ProductPricing pricing = new ProductPricing();
+            pricing.setProduct(product);
+            pricing.setBasePrice(new BigDecimal(prices[i]));
+            entityManager.persist(pricing);
+
+            ProductVariant variant = new ProductVariant();
+            variant.setProduct(product);
+            variant.setVariantName("Büyük");
+            variant.setPriceModifier(new BigDecimal("4.25"));
+            entityManager.persist(variant);
+
+            products.add(product);
+            variants.add(variant);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testIncrementalTotalsMatchFullRecomputation() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            Long userId = user("seed" + seed).getId();
+
+            CartResponse cart = cartService.getCart(userId);
+            for (int step = 0; step < STEPS; step++) {
+                cart = randomMutation(random, userId, cart);
+                assertMatchesRecomputation(cart, "seed " + seed + ", step " + step);
+            }
+
+            // The stored totals survive a reload, and match the entity's own full recalculation
+            entityManager.flush();
+            entityManager.clear();
+            Cart stored = cartService.getCartByUserId(userId);
+            Integer storedItems = stored.getTotalItems();
+            BigDecimal storedAmount = stored.getTotalAmount();
+            stored.calculateTotals();
+            assertThat(storedItems).isEqualTo(stored.getTotalItems());
+            assertThat(storedAmount).isEqualByComparingTo(stored.getTotalAmount());
+            entityManager.clear();
+        }
+    }
+
+    @Test
+    void testBatchesMatchFullRecomputation() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            Long userId = user("batch" + seed).getId();
+
+            CartResponse cart = cartService.getCart(userId);
+            for (int step = 0; step < STEPS / 5; step++) {
+                cart = cartService.applyBatch(userId, randomBatch(random, cart));
+                assertMatchesRecomputation(cart, "seed " + seed + ", batch " + step);
+            }
+            entityManager.clear();
+        }
+    }
+
+    @Test
+    void testConsistencyCheckDetectsDriftedTotals() {
+        Long userId = user("drift").getId();
+        cartService.addToCart(userId, addRequest(products.get(0), null, 2));
+
+        Cart cart = cartService.getCartByUserId(userId);
+        cart.setTotalItems(cart.getTotalItems() + 1);
+        entityManager.flush();
+
+        assertThatThrownBy(() -> cartService.addToCart(userId, addRequest(products.get(1), null, 1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private CartResponse randomMutation(Random random, Long userId, CartResponse current) {
+        List<CartItemResponse> items = current.getCartItems();
+        int operation = items.isEmpty() ? 0 : random.nextInt(3);
+        if (operation == 0) {
+            int index = random.nextInt(products.size());
+            ProductVariant variant = random.nextBoolean() ? variants.get(index) : null;
+            return cartService.addToCart(userId, addRequest(products.get(index), variant, 1 + random.nextInt(5)));
+        }
+
+        CartItemResponse item = items.get(random.nextInt(items.size()));
+        if (operation == 1) {
+            UpdateCartItemRequest request = new UpdateCartItemRequest();
+            // 0 removes the line through updateCartItem
+            request.setQuantity(random.nextInt(7));
+            return cartService.updateCartItem(userId, item.getId(), request);
+        }
+        return cartService.removeFromCart(userId, item.getId());
+    }
+
+    // Each existing line is touched at most once, so an UPDATE never follows a REMOVE of the same line
+    private CartBatchRequest randomBatch(Random random, CartResponse current) {
+        List<CartOperationRequest> operations = new ArrayList<>();
+        List<CartItemResponse> items = new ArrayList<>(current.getCartItems());
+        Collections.shuffle(items, random);
+        int size = 1 + random.nextInt(5);
+        for (int i = 0; i < size; i++) {
+            if (items.isEmpty() || random.nextBoolean()) {
+                int index = random.nextInt(products.size());
+                operations.add(CartOperationRequest.builder()
+                        .type(CartOperationRequest.Type.ADD)
+                        .productId(products.get(index).getId())
+                        .productVariantId(random.nextBoolean() ? variants.get(index).getId() : null)
+                        .quantity(1 + random.nextInt(5))
+                        .build());
+            } else {
+                CartItemResponse item = items.remove(items.size() - 1);
+                operations.add(CartOperationRequest.builder()
+                        .type(random.nextBoolean() ? CartOperationRequest.Type.UPDATE : CartOperationRequest.Type.REMOVE)
+                        .cartItemId(item.getId())
+                        .quantity(random.nextInt(7))
+                        .build());
+            }
+        }
+        return CartBatchRequest.builder().operations(operations).build();
+    }
+
+    private void assertMatchesRecomputation(CartResponse cart, String description) {
+        int totalItems = cart.getCartItems().stream().mapToInt(CartItemResponse::getQuantity).sum();
+        BigDecimal totalAmount = cart.getCartItems().stream()
+                .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertThat(cart.getTotalItems()).as(description).isEqualTo(totalItems);
+        assertThat(cart.getTotalAmount()).as(description).isEqualByComparingTo(totalAmount);
+    }
+
+    private AddToCartRequest addRequest(Product product, ProductVariant variant, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setProductVariantId(variant != null ? variant.getId() : null);
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@deliver.app");
+        user.setPassword("hash");
+        entityManager.persist(user);
+        return user;
+    }
+}
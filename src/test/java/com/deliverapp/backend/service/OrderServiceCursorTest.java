@@ -0,0 +1,115 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.dto.response.CursorPage;
+import com.deliverapp.backend.dto.response.OrderResponse;
+import com.deliverapp.backend.model.Order;
+import com.deliverapp.backend.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderService.class, CartService.class, ProductAttributes.class})
+public class OrderServiceCursorTest {
+    private static final int ORDERS = 12;
+    private static final int SAME_TIME = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    private User user;
+    private final List<Order> orders = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("siparisci");
+        user.setEmail("siparisci@deliver.app");
+        user.setPassword("hash");
+        entityManager.persist(user);
+
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setOrderNumber("ORD-" + i);
+            order.setOrderStatus(Order.OrderStatus.PENDING);
+            order.setPaymentStatus(Order.PaymentStatus.PENDING);
+            order.setTotalAmount(BigDecimal.TEN);
+            entityManager.persist(order);
+            orders.add(order);
+        }
+        entityManager.flush();
+
+        // Groups of orders share a created_at, so pages have to break ties on id
+        LocalDateTime base = LocalDateTime.of(2024, 5, 1, 12, 0);
+        for (int i = 0; i < ORDERS; i++) {
+            LocalDateTime createdAt = base.plusMinutes(i / SAME_TIME);
+            orders.get(i).setCreatedAt(createdAt);
+            jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt),
+                    orders.get(i).getId());
+        }
+        entityManager.clear();
+    }
+
+    @Test
+    void testCursorPagesWalkEqualCreatedAtWithoutGapsOrDuplicates() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            CursorPage<OrderResponse> page = orderService.getUserOrdersBefore(user.getId(), cursor, 2);
+            page.getItems().forEach(order -> ids.add(order.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = orders.stream()
+                .sorted(Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+        assertThat(ids).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(ORDERS / 2);
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        CursorPage<OrderResponse> all = orderService.getUserOrdersBefore(user.getId(), "", ORDERS);
+        assertThat(all.getItems()).hasSize(ORDERS);
+        assertThat(all.isHasNext()).isFalse();
+        assertThat(all.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        assertThatThrownBy(() -> orderService.getUserOrdersBefore(user.getId(), "bozuk-imlec", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,288 @@
+package com.deliverapp.backend.service;
+
+import com.deliverapp.backend.catalog.ProductAttributes;
+import com.deliverapp.backend.catalog.ProductSearchIndex;
+import com.deliverapp.backend.catalog.ProductSuggestIndex;
+import com.deliverapp.backend.dto.response.CursorPage;
+import com.deliverapp.backend.dto.response.ProductResponse;
+import com.deliverapp.backend.model.Category;
+import com.deliverapp.backend.model.OptionGroup;
+import com.deliverapp.backend.model.OptionValue;
+import com.deliverapp.backend.model.Product;
+import com.deliverapp.backend.model.ProductPricing;
+import com.deliverapp.backend.model.Service;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.deliverapp.backend.service.ProductServiceQueryCountTest$SqlRecorder")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ProductService.class, ProductAttributes.class, ProductSearchIndex.class, ProductSuggestIndex.class})
+public class ProductServiceQueryCountTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductService productService;
+
+    private Statistics statistics;
+    private Service service;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        service = new Service();
+        service.setKey("market");
+        service.setName("DeliVerMarket");
+        service.setCreatedAt(LocalDateTime.now());
+        service.setUpdatedAt(LocalDateTime.now());
+        entityManager.persist(service);
+
+        category = new Category();
+        category.setService(service);
+        category.setName("Atıştırmalık");
+        category.setSlug("atistirmalik");
+        entityManager.persist(category);
+
+        for (int i = 0; i < 30; i++) {
+            Product product = new Product();
+            product.setService(service);
+            product.setCategory(category);
+            product.setName("Ürün " + i);
+            product.setSlug("urun-" + i);
+            product.setKey("market-urun-" + i);
+            product.setProductType(Product.ProductType.PHYSICAL);
+            product.setSortOrder(i);
+            entityManager.persist(product);
+
+            ProductPricing pricing = new ProductPricing();
+            pricing.setProduct(product);
+            pricing.setPricingType(ProductPricing.PricingType.FIXED);
+            pricing.setBasePrice(BigDecimal.valueOf(10 + i));
+            entityManager.persist(pricing);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void testCategoryPageStatementCountDoesNotGrowWithPageSize() {
+        long smallPage = countStatements(() -> assertThat(productService.getProductsByCategory(category.getId(), 0, 5)).hasSize(5));
+        long largePage = countStatements(() -> assertThat(productService.getProductsByCategory(category.getId(), 0, 20)).hasSize(20));
+
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void testServicePageLoadsPricingForEveryProduct() {
+        entityManager.clear();
+        List<ProductResponse> products = productService.getProductsByService(service.getId(), 0, 10);
+
+        assertThat(products).hasSize(10);
+        assertThat(products).allSatisfy(product -> {
+            assertThat(product.getPricing()).hasSize(1);
+            assertThat(product.getServiceName()).isEqualTo("DeliVerMarket");
+            assertThat(product.getCategoryName()).isEqualTo("Atıştırmalık");
+        });
+    }
+
+    @Test
+    void testListEndpointsNeverRunCountQueries() {
+        countStatements(() -> {
+            assertThat(productService.getProductsByCategory(category.getId(), 0, 5)).hasSize(5);
+            assertThat(productService.getProductsByService(service.getId(), 1, 5)).hasSize(5);
+            assertThat(productService.searchProducts("", service.getId(), category.getId(), 0, 5)).hasSize(5);
+            assertThat(productService.searchProducts("", null, null, 2, 5)).hasSize(5);
+        });
+
+        assertThat(SqlRecorder.STATEMENTS).isNotEmpty()
+                .noneMatch(sql -> sql.toLowerCase().contains("count("));
+    }
+
+    @Test
+    void testListViewsSelectOnlyCardColumns() {
+        Product burger = new Product();
+        burger.setService(service);
+        burger.setCategory(category);
+        burger.setName("Burger");
+        burger.setSlug("burger");
+        burger.setKey("burger");
+        burger.setDescription("Uzun açıklama");
+        burger.setAttributesJson("{\"calories\": 540, \"allergens\": [\"gluten\"], \"image\": \"burger.png\"}");
+        burger.setProductType(Product.ProductType.PHYSICAL);
+        burger.setSortOrder(100);
+        entityManager.persist(burger);
+        entityManager.flush();
+
+        countStatements(() -> {
+            ProductResponse card = productService.getProductsByCategory(category.getId(), 1, 30).get(0);
+            assertThat(card.getName()).isEqualTo("Burger");
+            assertThat(card.getDescription()).isNull();
+            assertThat(card.getAttributes()).containsOnly(Map.entry("image", "burger.png"));
+        });
+        assertThat(SqlRecorder.STATEMENTS).noneMatch(sql -> sql.contains(".description"));
+
+        assertThat(productService.getProductById(burger.getId())).hasValueSatisfying(detail -> {
+            assertThat(detail.getDescription()).isEqualTo("Uzun açıklama");
+            assertThat(detail.getAttributes()).containsKeys("calories", "allergens", "image");
+        });
+    }
+
+    @Test
+    void testCursorPagesWalkTheCategoryWithoutGapsOrCounts() {
+        List<String> names = new ArrayList<>();
+        List<Long> statementCounts = new ArrayList<>();
+        String cursor = "";
+        do {
+            AtomicReference<CursorPage<ProductResponse>> page = new AtomicReference<>();
+            String current = cursor;
+            statementCounts.add(countStatements(() -> page.set(productService.getProductsByCategoryAfter(category.getId(), current, 7))));
+            page.get().getItems().forEach(product -> names.add(product.getName()));
+            cursor = page.get().getNextCursor();
+        } while (cursor != null);
+
+        assertThat(names).hasSize(30).doesNotHaveDuplicates();
+        assertThat(names.get(0)).isEqualTo("Ürün 0");
+        assertThat(names.get(29)).isEqualTo("Ürün 29");
+        // Page query + pricing query, on the first and on the last page alike
+        assertThat(statementCounts).containsOnly(2L);
+    }
+
+    @Test
+    void testCursorPagesKeepProductsWithoutSortOrder() {
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setService(service);
+            product.setCategory(category);
+            product.setName("Sırasız " + i);
+            product.setSlug("sirasiz-" + i);
+            product.setKey("market-sirasiz-" + i);
+            product.setProductType(Product.ProductType.PHYSICAL);
+            product.setSortOrder(null);
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+
+        List<String> names = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorPage<ProductResponse> page = productService.getProductsByCategoryAfter(category.getId(), cursor, 4);
+            page.getItems().forEach(product -> names.add(product.getName()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // NULL sorts as 0: after "Ürün 0" (lower id), before "Ürün 1"
+        assertThat(names).hasSize(33).doesNotHaveDuplicates();
+        assertThat(names.subList(0, 4)).containsExactly("Ürün 0", "Sırasız 0", "Sırasız 1", "Sırasız 2");
+    }
+
+    @Test
+    void testRankedSearchRejectsNegativePagesLikeListings() {
+        assertThatThrownBy(() -> productService.searchProducts("urun", null, null, -1, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.searchProducts("", null, null, -1, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.searchProducts("urun", null, null, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        assertThatThrownBy(() -> productService.getProductsByCategoryAfter(category.getId(), "bozuk-imlec", 7))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testProductDetailStatementCountDoesNotGrowWithOptionGroups() {
+        Product pizza = productWithOptionGroups("pizza", 1);
+        Product bigPizza = productWithOptionGroups("big-pizza", 6);
+
+        long fewGroups = countStatements(() -> assertThat(productService.getProductById(pizza.getId()))
+                .hasValueSatisfying(product -> assertThat(product.getOptionGroups()).hasSize(1)));
+        long manyGroups = countStatements(() -> assertThat(productService.getProductById(bigPizza.getId()))
+                .hasValueSatisfying(product -> {
+                    assertThat(product.getOptionGroups()).hasSize(6);
+                    assertThat(product.getOptionGroups()).allSatisfy(group ->
+                            assertThat(group.getOptions()).extracting("name").containsExactly("Küçük", "Orta", "Büyük"));
+                }));
+
+        assertThat(manyGroups).isEqualTo(fewGroups);
+    }
+
+    private Product productWithOptionGroups(String key, int groupCount) {
+        Product product = new Product();
+        product.setService(service);
+        product.setCategory(category);
+        product.setName(key);
+        product.setSlug(key);
+        product.setKey(key);
+        product.setProductType(Product.ProductType.PHYSICAL);
+        entityManager.persist(product);
+
+        for (int i = 0; i < groupCount; i++) {
+            OptionGroup group = new OptionGroup();
+            group.setProduct(product);
+            group.setName("Grup " + i);
+            group.setOptionType(OptionGroup.OptionType.SINGLE);
+            group.setSortOrder(i);
+            entityManager.persist(group);
+
+            // Persisted out of order to check the values come back sorted
+            String[] names = {"Büyük", "Küçük", "Orta"};
+            int[] sortOrders = {3, 1, 2};
+            for (int j = 0; j < names.length; j++) {
+                OptionValue value = new OptionValue();
+                value.setOptionGroup(group);
+                value.setName(names[j]);
+                value.setSortOrder(sortOrders[j]);
+                entityManager.persist(value);
+            }
+        }
+        entityManager.flush();
+        return product;
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        SqlRecorder.STATEMENTS.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}